@@ -0,0 +1,203 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+/**
+ * Object that estimates the area of the part of a fractal that lies within the current view, as opposed to the
+ * pixel percentage in the information block which depends on the resolution of the screen. Points are sampled
+ * in batches spread over every core. Each batch follows a low discrepancy (R2) sequence that is shifted by a
+ * random amount drawn from the generator of the thread it runs on, so every batch is an independent, unbiased
+ * estimate and the spread between batches gives the standard error. Points are iterated with the fractal's own
+ * numIterations, after the same shortcuts used when drawing (the bailout circle, and the interior checks of the
+ * Mandelbrot set). Batches are run until the standard error falls below the requested precision or
+ * the sample limit is reached, and the running estimate can be read at any time while this is happening.
+ * Run with: java mandelbrot.AreaEstimator [standardError] [maxSamples]
+ */
+
+public class AreaEstimator {
+
+    /**The plastic number, whose powers give the step of the R2 sequence in each direction*/
+    private static final double PLASTIC = 1.32471795724474602596;
+    private static final double STEP_X = 1 / PLASTIC;
+    private static final double STEP_Y = 1 / (PLASTIC * PLASTIC);
+
+    /**Fractal whose view is measured*/
+    private FractalSet template;
+
+    /**Number of points in each batch and number of worker threads*/
+    private int batchSize;
+    private int threads;
+
+    /**Fractal used by each worker thread, so that the kernels do not share state*/
+    private ThreadLocal<FractalSet> kernels;
+
+    /**Running totals of the fraction of each batch that was inside the set*/
+    private long batches;
+    private double fractionSum;
+    private double fractionSqrSum;
+
+    /**Constructs an estimator for the area of the template within its current view*/
+    public AreaEstimator(FractalSet template) {
+
+        this.template = template;
+        this.batchSize = 1 << 16;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.kernels = ThreadLocal.withInitial(() -> {
+            FractalSet kernel = template.clone();
+            kernel.setDimensions(new Dimension(1, 1));
+            return kernel;
+        });
+
+    }
+
+    /**Samples until the standard error of the area is at most the target or maxSamples have been taken*/
+    public double estimate(double targetStandardError, long maxSamples) throws InterruptedException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Callable<Double>> round = new ArrayList<>();
+            for (int i = 0; i < threads; i++) round.add(this::sampleBatch);
+
+            do {
+                for (Future<Double> batch: executor.invokeAll(round)) {
+                    try {
+                        addBatch(batch.get());
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+            } while ((getBatches() < 2 || getStandardError() > targetStandardError) && getSamples() < maxSamples);
+        } finally {
+            executor.shutdown();
+        }
+        return getArea();
+
+    }
+
+    /**Samples a randomly shifted batch of the R2 sequence and returns the fraction of points inside the set*/
+    private double sampleBatch() {
+
+        FractalSet kernel = kernels.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double x = random.nextDouble();
+        double y = random.nextDouble();
+        double zoom = template.getZoom();
+        double width = template.getDimensions().width / zoom;
+        double height = template.getDimensions().height / zoom;
+        double left = template.getCentre().getReal() - template.getDimensions().width / 2 / zoom;
+        double top = template.getCentre().getImaginary() + template.getDimensions().height / 2 / zoom;
+
+        int inside = 0;
+        for (int i = 0; i < batchSize; i++) {
+            x += STEP_X;
+            if (x >= 1) x -= 1;
+            y += STEP_Y;
+            if (y >= 1) y -= 1;
+            if (isInside(kernel, new ComplexNumber(left + x * width, top - y * height))) inside++;
+        }
+        return inside / (double)batchSize;
+
+    }
+
+    /**Checks whether a point reaches max iterations, trying the shortcuts before iterating*/
+    private static boolean isInside(FractalSet kernel, ComplexNumber point) {
+
+        if (kernel.getType() == FractalType.MANDELBROT) {
+            if (kernel.getFormula() == null) {
+                if (point.sqrOfMagnitude() > 4) return false;
+                if (AttractingCycle.isKnownInterior(point, kernel.getPower(), kernel.getzStart())) return true;
+            }
+            return kernel.numIterations(kernel.getzStart(), point, 0, 0) == kernel.getMaxIterations();
+        }
+        if (point.sqrOfMagnitude() > 4) return false;
+        return kernel.numIterations(point, kernel.getC(), 0, 0) == kernel.getMaxIterations();
+
+    }
+
+    private synchronized void addBatch(double fraction) {
+
+        batches++;
+        fractionSum += fraction;
+        fractionSqrSum += fraction * fraction;
+
+    }
+
+    /**Returns the area of the view in the complex plane*/
+    public double getViewArea() {
+
+        Dimension dimensions = template.getDimensions();
+        return dimensions.width * (double)dimensions.height / (template.getZoom() * template.getZoom());
+
+    }
+
+    /**Returns the running estimate of the area of the set within the view*/
+    public synchronized double getArea() {
+
+        return batches == 0 ? Double.NaN : fractionSum / batches * getViewArea();
+
+    }
+
+    /**Returns the standard error of the running estimate, from the spread between batches*/
+    public synchronized double getStandardError() {
+
+        if (batches < 2) return Double.NaN;
+        double mean = fractionSum / batches;
+        double variance = Math.max(0, (fractionSqrSum - batches * mean * mean) / (batches - 1));
+        return Math.sqrt(variance / batches) * getViewArea();
+
+    }
+
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    public synchronized long getSamples() {
+        return batches * batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        double targetStandardError = args.length > 0 ? Double.parseDouble(args[0]) : 1e-5;
+        long maxSamples = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000_000L;
+
+        MandelbrotSet mandelbrotSet = new MandelbrotSet();
+        mandelbrotSet.setDimensions(new Dimension(600, 400));
+        mandelbrotSet.setMaxIterations(1000);
+        mandelbrotSet.setPower(2);
+        mandelbrotSet.setChunkSize(1);
+        mandelbrotSet.setZoom(150);
+        mandelbrotSet.setCentre(new ComplexNumber(-0.75, 0));
+        mandelbrotSet.setzStart(new ComplexNumber());
+        AreaEstimator estimator = new AreaEstimator(mandelbrotSet);
+        estimator.setThreads(PerformanceProfile.current().getThreads());
+
+        Thread progress = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(5_000);
+                    System.out.println(String.format("%d samples: %.8f ± %.8f", estimator.getSamples(), estimator.getArea(), estimator.getStandardError()));
+                }
+            } catch (InterruptedException ignored) {
+            }
+        });
+        progress.setDaemon(true);
+        progress.start();
+
+        long start = System.nanoTime();
+        estimator.estimate(targetStandardError, maxSamples);
+        System.out.println(String.format("Area: %.8f ± %.8f from %d samples in %d ms", estimator.getArea(), estimator.getStandardError(),
+                estimator.getSamples(), (System.nanoTime() - start) / 1_000_000));
+
+    }
+
+}
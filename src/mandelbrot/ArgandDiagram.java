@@ -14,6 +14,9 @@ import java.util.ArrayList;
 
 public class ArgandDiagram extends JPanel {
 
+    /**Milliseconds between each showing of the image as it is refined while idle*/
+    private static final int ACCUMULATION_INTERVAL = 250;
+
     /**Reference to the main GUI*/
     private MandelbrotFrame mandelbrotFrame;
 
@@ -26,16 +29,28 @@ public class ArgandDiagram extends JPanel {
     /**Colours that the fractals should be generated with*/
     FractalColours colours;
 
-    /**Fields used when tracking a complex number*/
-    private GenericQueue<ComplexNumber> trackingQueue;
-    private double pathLength;
-    private ComplexNumber first;
-    private ComplexNumber last;
+    /**Orbit of the tracked complex number, reused between drags*/
+    private OrbitBuffer orbit;
 
     private FractalSet fractalSet;
     private Point imgLocation;
     DrawingConditions conditions;
     private int[] histogram;
+    private int histogramTotal;
+
+    /**Accumulator that refines the image while the user is idle, and the timer that shows its progress*/
+    private ProgressiveAccumulator accumulator;
+    private Timer accumulationTimer = new Timer(ACCUMULATION_INTERVAL, ae -> publishAccumulation());
+
+    /**Earlier images that previews of new views are made from, and whether a preview is being painted*/
+    private PreviewPyramid previews = new PreviewPyramid();
+    private boolean previewing;
+
+    /**Bounds of the tiles iterated on another thread that are waiting to be coloured over the image*/
+    private final ArrayList<Rectangle> finishedTiles = new ArrayList<>();
+
+    /**Image of another Julia set shown in place of this one while the cursor hovers over the Mandelbrot set, or null*/
+    private BufferedImage hoverImage;
 
     ArrayList<ArgandDiagram> repaintList;
 
@@ -51,7 +66,7 @@ public class ArgandDiagram extends JPanel {
         this.fractalSet = fractalSet;
         this.conditions = conditions;
         this.colours = colours;
-        this.trackingQueue = new GenericQueue<>();
+        this.orbit = new OrbitBuffer();
         this.fractalController = new FractalController(mandelbrotFrame, this);
         this.repaintList = repaintList;
         this.setVisible(true);
@@ -68,7 +83,7 @@ public class ArgandDiagram extends JPanel {
         this.fractalSet = fractalSet;
         this.conditions = conditions;
         this.colours = colours;
-        this.trackingQueue = new GenericQueue<>();
+        this.orbit = new OrbitBuffer();
         this.setVisible(true);
 
     }
@@ -82,18 +97,16 @@ public class ArgandDiagram extends JPanel {
 
         super.paintComponent(g);
 
-        first = last = null;
-        pathLength = 0;
-
-        if (conditions.readyToCreateImage) {
+        if (conditions.readyToCreateImage && !previewing) {
 
             createImage(colours);
 
         }
+        long start = System.nanoTime();
 
-        g.drawImage(fractalImg, this.imgLocation.x, this.imgLocation.y, this);
+        g.drawImage(hoverImage != null ? hoverImage : fractalImg, this.imgLocation.x, this.imgLocation.y, this);
 
-        if(!trackingQueue.isEmpty()) {
+        if(!orbit.isEmpty()) {
 
             drawLines(g);
 
@@ -103,7 +116,8 @@ public class ArgandDiagram extends JPanel {
             drawInfo(g);
 
         }
-        if (repaintList != null) {
+        orbit.clear();
+        if (repaintList != null && !previewing) {
             if (!repaintList.isEmpty()) {
                 repaintList.remove(this);
                 if (repaintList.isEmpty()) {
@@ -112,6 +126,7 @@ public class ArgandDiagram extends JPanel {
             }
             repaintList = null;
         }
+        fractalSet.getMetrics().recordPaint(System.nanoTime() - start);
 
     }
 
@@ -122,66 +137,246 @@ public class ArgandDiagram extends JPanel {
         int height = fractalSet.getIterations().length;
 
         fractalImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        discardAccumulation();
+        clearFinishedTiles();
 
+        if (fractalSet.isRecordingCosts() && (conditions.readyToDrawIterationHeatmap || conditions.readyToDrawTimeHeatmap)) {
+            createHeatmap(conditions.readyToDrawTimeHeatmap ? fractalSet.getTimeCosts() : fractalSet.getIterationCosts());
+            return;
+        }
+
+        RenderMetrics metrics = fractalSet.getMetrics();
+        Object colouringEvent = FlightRecorderEvents.beginColouring();
+        long start = System.nanoTime();
         int total = 0;
         if (conditions.readyToHistogramColour) {
             histogram = fillHistogram(fractalSet.getIterations(), fractalSet.getChunkSize(), fractalSet.getMaxIterations());
             for (int i = 0; i < fractalSet.getMaxIterations() - 1; i++) total += histogram[i];
         }
+        histogramTotal = total;
+        metrics.recordHistogram(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        int[][][] subSamples = fractalSet.getChunkSize() == 1 ? fractalSet.getSubSamples() : null;
         for (int y = 0; y < height; y += fractalSet.getChunkSize()) {
             for (int x = 0; x < width; x += fractalSet.getChunkSize()) {
 
-                if (fractalSet.getIterations()[y][x] == fractalSet.getMaxIterations()) {
+                Color pixelColour = colourIterations(fractalSet.getIterations()[y][x]);
+                if (subSamples != null && subSamples[y][x] != null) pixelColour = averageColours(pixelColour, subSamples[y][x]);
+                addFilledSquare(x, y, fractalSet.getChunkSize(), pixelColour);
 
-                    addFilledSquare(x, y, fractalSet.getChunkSize(), colours.getInner());
+            }
+        }
+        metrics.recordColour(System.nanoTime() - start);
+        if (conditions.readyToPreview && conditions.readyToRecordPreview && fractalSet.getChunkSize() == 1) previews.record(fractalImg, fractalSet, colours, conditions);
+        String mode = conditions.readyToHistogramColour ? "histogram" : conditions.readyToColourPalette ? "palette" : "linear";
+        FlightRecorderEvents.commitColouring(colouringEvent, fractalSet.getType(), mode, (width * height) / (fractalSet.getChunkSize() * fractalSet.getChunkSize()));
 
-                }
-                else {
+    }
 
-                    double scale;
-                    if (conditions.readyToHistogramColour) scale = calcScale(histogram, total, fractalSet.getIterations()[y][x]);
-                    else scale = fractalSet.getIterations()[y][x]/(double)fractalSet.getMaxIterations();
+    /**Chooses the colour of a number of iterations with the current colouring method*/
+    Color colourIterations(int numIterations) {
 
-                    Color pixelColour;
-                    if (conditions.readyToColourPalette) pixelColour = scalePalette(colours.getOuter(), scale);
-                    else pixelColour = colours.scaleBetweenColours(scale);
+        return colourIterations(numIterations, fractalSet.getMaxIterations(), histogram, histogramTotal, conditions, colours);
 
-                    addFilledSquare(x, y, fractalSet.getChunkSize(), pixelColour);
+    }
+
+    /**Chooses the colour of a number of iterations from the given colouring inputs, which may be copies used off the event dispatch thread*/
+    static Color colourIterations(int numIterations, int maxIterations, int[] histogram, int histogramTotal, DrawingConditions conditions, FractalColours colours) {
+
+        if (numIterations == maxIterations) return colours.getInner();
+
+        double scale;
+        if (conditions.readyToHistogramColour) scale = calcScale(histogram, histogramTotal, numIterations);
+        else scale = numIterations/(double)maxIterations;
+
+        if (conditions.readyToColourPalette) return scalePalette(colours.getOuter(), scale);
+        return colours.scaleBetweenColours(scale);
+
+    }
+
+    /**Averages the colour of an anti-aliased pixel with the colours of the extra samples taken within it*/
+    private Color averageColours(Color pixelColour, int[] samples) {
+
+        int red = pixelColour.getRed();
+        int green = pixelColour.getGreen();
+        int blue = pixelColour.getBlue();
+        for (int numIterations: samples) {
+            Color sampleColour = colourIterations(numIterations);
+            red += sampleColour.getRed();
+            green += sampleColour.getGreen();
+            blue += sampleColour.getBlue();
+        }
+        int count = samples.length + 1;
+        return new Color((red + count / 2) / count, (green + count / 2) / count, (blue + count / 2) / count);
+
+    }
+
+    /**Diagnostic colouring that shades each pixel by how much it cost to iterate, on a log scale from black through red and yellow to white*/
+    private void createHeatmap(int[][] costs) {
+
+        int chunkSize = fractalSet.getChunkSize();
+        int maxCost = 1;
+        for (int y = 0; y < costs.length; y += chunkSize) {
+            for (int x = 0; x < costs[0].length; x += chunkSize) {
+                maxCost = Math.max(maxCost, costs[y][x]);
+            }
+        }
+
+        double logOfMaxCost = Math.log1p(maxCost);
+        for (int y = 0; y < costs.length; y += chunkSize) {
+            for (int x = 0; x < costs[0].length; x += chunkSize) {
+
+                float scale = (float)(3 * Math.log1p(costs[y][x]) / logOfMaxCost);
+                Color heat = new Color(Math.min(1, scale), Math.min(1, Math.max(0, scale - 1)), Math.min(1, Math.max(0, scale - 2)));
+                addFilledSquare(x, y, chunkSize, heat);
 
-                }
             }
         }
 
     }
 
-    /**Iterates through the queue to connect up the locations travelled to by a tracked complex number*/
-    private void drawLines(Graphics2D g) {
+    /**Colours the current data of the FractalSet straight into the BufferedImage without waiting for a repaint*/
+    public BufferedImage renderImage() {
 
-        int[] nextPixel, lastPixel;
-        first = trackingQueue.remove();
-        lastPixel = fractalSet.complexNumberToPixel(first);
-        g.setColor(colours.getInverse());
+        createImage(colours);
+        return fractalImg;
+
+    }
+
+    /**Starts or resumes refining the image with jittered samples, unless it is a low resolution or diagnostic image*/
+    public void startAccumulating(int threads) {
+
+        if (fractalSet.getChunkSize() != 1 || (fractalSet.isRecordingCosts() && (conditions.readyToDrawIterationHeatmap || conditions.readyToDrawTimeHeatmap))) return;
+        if (fractalImg.getWidth() != fractalSet.getIterations()[0].length || fractalImg.getHeight() != fractalSet.getIterations().length) return;
+        if (accumulator == null) accumulator = new ProgressiveAccumulator(fractalImg, fractalSet, histogram, histogramTotal, conditions, colours);
+        if (accumulator.isConverged()) return;
+        accumulator.start(threads);
+        accumulationTimer.start();
+
+    }
+
+    /**Pauses the refinement of the image, keeping the samples taken so far*/
+    public void stopAccumulating() {
+
+        if (accumulator != null) accumulator.stop();
+        accumulationTimer.stop();
 
-        if (conditions.readyToDrawCoords) g.drawString(first.toString(3), lastPixel[0], lastPixel[1]);
+    }
+
+    /**Stops refining the image and throws away its samples, as they no longer match the fractal*/
+    private void discardAccumulation() {
+
+        stopAccumulating();
+        accumulator = null;
+
+    }
+
+    /**Shows the refined image so far, and stops showing it once the image has converged*/
+    private void publishAccumulation() {
 
-        drawDiagonalCross(g, lastPixel[0], lastPixel[1], 4);
-        last = first;
-        pathLength = 0;
-        for (ComplexNumber point: trackingQueue) {
+        if (accumulator == null) return;
+        if (accumulator.isConverged()) accumulationTimer.stop();
+        fractalImg = accumulator.snapshot();
+        repaint();
 
-            pathLength += last.distanceBetween(point);
-            nextPixel = fractalSet.complexNumberToPixel(point);
+    }
+
+    /**Paints a preview of the fractal's new view straight away, scaled and translated from earlier images of it*/
+    public void showPreview() {
+
+        if (!conditions.readyToPreview) return;
+        BufferedImage preview = new BufferedImage(fractalSet.getIterations()[0].length, fractalSet.getIterations().length, BufferedImage.TYPE_INT_RGB);
+        if (!previews.compose(preview, fractalSet, colours, conditions, getBackground())) return;
+        discardAccumulation();
+        fractalImg = preview;
+        imgLocation = new Point();
+        previewing = true;
+        paintImmediately(0, 0, getWidth(), getHeight());
+        previewing = false;
+
+    }
+
+    /**Adds a tile that has been iterated on another thread to those waiting to be coloured*/
+    public void addFinishedTile(Rectangle bounds) {
+
+        synchronized (finishedTiles) {
+            finishedTiles.add(bounds);
+        }
+
+    }
+
+    /**Forgets the tiles waiting to be coloured, as they belong to a pass that was cancelled or has been drawn in full*/
+    public void clearFinishedTiles() {
+
+        synchronized (finishedTiles) {
+            finishedTiles.clear();
+        }
+
+    }
 
-            g.setColor(colours.getInverse());
-            g.drawLine(lastPixel[0], lastPixel[1], nextPixel[0], nextPixel[1]);
-            if (trackingQueue.isEmpty()) {
-                g.setColor(colours.getInverse());
-                if (conditions.readyToDrawCoords) g.drawString(point.toString(3), nextPixel[0], nextPixel[1]);
-                drawDiagonalCross(g, nextPixel[0], nextPixel[1], 4);
+    /**
+     * Colours the tiles finished so far over the image onscreen, leaving the rest of it (usually a preview of the new
+     * view) in place until its tiles are done. Histogram colouring reuses the last histogram, so the tiles are left
+     * for the full image if that histogram does not cover the current max iterations
+     */
+    public void colourFinishedTiles() {
+
+        ArrayList<Rectangle> tiles;
+        synchronized (finishedTiles) {
+            tiles = new ArrayList<>(finishedTiles);
+            finishedTiles.clear();
+        }
+        int[][] iterations = fractalSet.getIterations();
+        if (tiles.isEmpty() || fractalImg.getWidth() != iterations[0].length || fractalImg.getHeight() != iterations.length) return;
+        if (fractalSet.isRecordingCosts() && (conditions.readyToDrawIterationHeatmap || conditions.readyToDrawTimeHeatmap)) return;
+        if (conditions.readyToHistogramColour && (histogram == null || histogram.length < fractalSet.getMaxIterations() - 1)) return;
+
+        discardAccumulation();
+        int chunkSize = fractalSet.getChunkSize();
+        for (Rectangle tile: tiles) {
+            int bottom = Math.min(tile.y + tile.height, iterations.length);
+            int right = Math.min(tile.x + tile.width, iterations[0].length);
+            for (int y = tile.y; y < bottom; y += chunkSize) {
+                for (int x = tile.x; x < right; x += chunkSize) {
+                    addFilledSquare(x, y, chunkSize, colourIterations(iterations[y][x]));
+                }
             }
+        }
+        repaint();
+
+    }
+
+    /**Forgets the earlier images used for previews*/
+    public void clearPreviews() {
+
+        previews.clear();
+
+    }
+
+    /**Shows an image in place of this fractal's own until it is set back to null*/
+    public void setHoverImage(BufferedImage hoverImage) {
 
-            last = point;
-            lastPixel = nextPixel;
+        this.hoverImage = hoverImage;
+        repaint();
+
+    }
+
+    /**Draws the orbit of a tracked complex number as a single path, with crosses at either end*/
+    private void drawLines(Graphics2D g) {
+
+        ComplexNumber first = orbit.getFirst();
+        ComplexNumber last = orbit.getLast();
+        int[] firstPixel = fractalSet.complexNumberToPixel(first);
+        int[] lastPixel = fractalSet.complexNumberToPixel(last);
+        g.setColor(colours.getInverse());
+
+        g.draw(orbit.toPath(fractalSet));
+        drawDiagonalCross(g, firstPixel[0], firstPixel[1], 4);
+        if (conditions.readyToDrawCoords) g.drawString(first.toString(3), firstPixel[0], firstPixel[1]);
+        if (orbit.getLength() > 1) {
+            drawDiagonalCross(g, lastPixel[0], lastPixel[1], 4);
+            if (conditions.readyToDrawCoords) g.drawString(last.toString(3), lastPixel[0], lastPixel[1]);
         }
 
     }
@@ -218,10 +413,18 @@ public class ArgandDiagram extends JPanel {
         if (percentage > 100) percentage = 100;
         g.drawString("Pixel percentage: " + percentage + "%", infoPos, 100);
 
-        if (first == null || last == null) distance = Double.NaN;
-        else distance = Math.round(first.distanceBetween(last) * 1000) / 1000.0;
+        if (orbit.isEmpty()) distance = Double.NaN;
+        else distance = Math.round(orbit.getFirst().distanceBetween(orbit.getLast()) * 1000) / 1000.0;
         g.drawString("Distance moved: " + distance, infoPos, 120);
-        g.drawString("Total path length: " + Math.round(pathLength * 1000) / 1000.0, infoPos, 140);
+        g.drawString("Total path length: " + Math.round(orbit.getPathLength() * 1000) / 1000.0, infoPos, 140);
+
+        if (conditions.readyToDrawMetrics) {
+            int linePos = 180;
+            for (String line: fractalSet.getMetrics().describeLastFrame()) {
+                g.drawString(line, infoPos, linePos);
+                linePos += 20;
+            }
+        }
 
 
     }
@@ -230,7 +433,7 @@ public class ArgandDiagram extends JPanel {
     public void track(int x, int y) {
 
         ComplexNumber point = fractalSet.pixelToComplexNumber(x, y);
-        trackingQueue = fractalSet.fillTrackingQueue(point);
+        fractalSet.fillOrbit(point, orbit);
 
     }
 
@@ -250,7 +453,7 @@ public class ArgandDiagram extends JPanel {
     }
 
     /**Based on an input numIterations, looks through the histogram to find the proportional scaling for this pixel*/
-    private double calcScale(int[] histogram, int total, int numIterations) {
+    private static double calcScale(int[] histogram, int total, int numIterations) {
 
         double scale = 0;
         for (int i = 0; i < numIterations; i++) {
@@ -294,7 +497,7 @@ public class ArgandDiagram extends JPanel {
     }
 
     /**Uses HSV colouring to scale from a beginning colour, through the rainbow and back to itself*/
-    private Color scalePalette(Color firstColour, double scale) {
+    private static Color scalePalette(Color firstColour, double scale) {
 
         float[] hsbArray = new float[3];
         Color.RGBtoHSB(firstColour.getRed(), firstColour.getGreen(), firstColour.getBlue(), hsbArray);
@@ -0,0 +1,285 @@
+package mandelbrot;
+
+/**
+ * Attracting cycle of z^power + c for an integer power, along with a trap: a small disc around one point of the
+ * cycle that is mapped back inside itself by power iterations of the equation, so any orbit that enters it can
+ * never escape. Every attracting cycle attracts the critical point 0, so the cycle of a Julia set is found once by
+ * following the orbit of 0 until it repeats, after which every pixel whose orbit lands in the trap is known to be
+ * interior without iterating it all the way to max iterations. The size of the trap is chosen with the mean value
+ * bound |w^d - z^d| <= d max(|w|, |z|)^(d - 1) |w - z|, allowing for the rounding error of the cycle points. For the
+ * Mandelbrot set, where c changes with every pixel, the cardioid and bulb checks are used for z^2 + c from 0, and
+ * Newton's method is used otherwise to test for an attracting fixed point, which is the main component of every
+ * Multibrot set.
+ */
+
+public class AttractingCycle {
+
+    /**Longest cycle that is searched for*/
+    private static final int MAX_PERIOD = 64;
+
+    /**Number of iterations the orbit of 0 is given to settle onto the cycle, and the distance that counts as repeating*/
+    private static final int SETTLE_ITERATIONS = 10_000;
+    private static final double REPEAT_DISTANCE = 1e-10;
+
+    /**Number of iterations that an orbit from a nonzero zStart is given to reach the trap of a fixed point*/
+    private static final int TRAP_ITERATIONS = 64;
+
+    /**The equation the cycle belongs to*/
+    private ComplexNumber c;
+    private int power;
+
+    /**Points of the cycle, or empty if no attracting cycle was found*/
+    private double[] real;
+    private double[] imaginary;
+
+    /**Magnitude of the derivative of the equation over one trip around the cycle*/
+    private double multiplier;
+
+    /**Radius of the trap around the first point of the cycle*/
+    private double trapRadius;
+
+    private AttractingCycle(ComplexNumber c, int power) {
+
+        this.c = new ComplexNumber(c.getReal(), c.getImaginary());
+        this.power = power;
+        this.real = new double[0];
+        this.imaginary = new double[0];
+
+    }
+
+    /**Follows the orbit of 0 to find the attracting cycle for c, returning an empty cycle if there is none*/
+    public static AttractingCycle find(ComplexNumber c, int power) {
+
+        AttractingCycle cycle = new AttractingCycle(c, power);
+        double[] z = new double[2];
+        for (int i = 0; i < SETTLE_ITERATIONS; i++) {
+            step(z, power, c.getReal(), c.getImaginary());
+            if (z[0] * z[0] + z[1] * z[1] > 4) return cycle;
+        }
+
+        double startReal = z[0];
+        double startImaginary = z[1];
+        int period = 0;
+        for (int p = 1; p <= MAX_PERIOD && period == 0; p++) {
+            step(z, power, c.getReal(), c.getImaginary());
+            double distanceReal = z[0] - startReal;
+            double distanceImaginary = z[1] - startImaginary;
+            if (distanceReal * distanceReal + distanceImaginary * distanceImaginary < REPEAT_DISTANCE * REPEAT_DISTANCE) period = p;
+        }
+        if (period == 0) return cycle;
+
+        double[] real = new double[period];
+        double[] imaginary = new double[period];
+        z[0] = startReal;
+        z[1] = startImaginary;
+        double multiplierReal = 1;
+        double multiplierImaginary = 0;
+        for (int k = 0; k < period; k++) {
+            real[k] = z[0];
+            imaginary[k] = z[1];
+            double[] derivative = {z[0], z[1]};
+            powerOf(derivative, power - 1);
+            double nextReal = multiplierReal * derivative[0] - multiplierImaginary * derivative[1];
+            multiplierImaginary = power * (multiplierReal * derivative[1] + multiplierImaginary * derivative[0]);
+            multiplierReal = power * nextReal;
+            step(z, power, c.getReal(), c.getImaginary());
+        }
+        double multiplier = Math.sqrt(multiplierReal * multiplierReal + multiplierImaginary * multiplierImaginary);
+        if (multiplier >= 1) return cycle;
+
+        double trapRadius = findTrapRadius(real, imaginary, power, c);
+        if (trapRadius == 0) return cycle;
+
+        cycle.real = real;
+        cycle.imaginary = imaginary;
+        cycle.multiplier = multiplier;
+        cycle.trapRadius = trapRadius;
+        return cycle;
+
+    }
+
+    /**Finds the largest radius, halving from a quarter, whose disc around the first point returns inside itself*/
+    private static double findTrapRadius(double[] real, double[] imaginary, int power, ComplexNumber c) {
+
+        int period = real.length;
+        double[] errors = new double[period];
+        for (int k = 0; k < period; k++) {
+            double[] z = {real[k], imaginary[k]};
+            step(z, power, c.getReal(), c.getImaginary());
+            errors[k] = Math.hypot(z[0] - real[(k + 1) % period], z[1] - imaginary[(k + 1) % period]);
+        }
+
+        for (double radius = 0.25; radius > 1e-12; radius /= 2) {
+            double reach = radius;
+            for (int k = 0; k < period; k++) {
+                reach = power * Math.pow(Math.hypot(real[k], imaginary[k]) + reach, power - 1) * reach + errors[k];
+            }
+            if (reach < radius) return radius;
+        }
+        return 0;
+
+    }
+
+    /**Checks whether this cycle was found for the given equation*/
+    public boolean isFor(ComplexNumber c, int power) {
+
+        return this.power == power && this.c.equals(c);
+
+    }
+
+    /**
+     * Iterates from z until it escapes, lands in the trap or reaches maxIterations, returning the number of
+     * iterations executed and writing the final z and whether it was trapped (1) or not (0) into result
+     */
+    public int iterate(double zReal, double zImaginary, int maxIterations, double[] result) {
+
+        double trapReal = real[0];
+        double trapImaginary = imaginary[0];
+        double trapRadiusSqr = trapRadius * trapRadius;
+        double cReal = c.getReal();
+        double cImaginary = c.getImaginary();
+        int i;
+        for (i = 0; i < maxIterations && zReal * zReal + zImaginary * zImaginary <= 4; i++) {
+            double distanceReal = zReal - trapReal;
+            double distanceImaginary = zImaginary - trapImaginary;
+            if (distanceReal * distanceReal + distanceImaginary * distanceImaginary <= trapRadiusSqr) {
+                result[0] = zReal;
+                result[1] = zImaginary;
+                result[2] = 1;
+                return i;
+            }
+            double powerReal = zReal;
+            double powerImaginary = zImaginary;
+            for (int p = 1; p < power; p++) {
+                double nextReal = powerReal * zReal - powerImaginary * zImaginary;
+                powerImaginary = powerReal * zImaginary + zReal * powerImaginary;
+                powerReal = nextReal;
+            }
+            zReal = powerReal + cReal;
+            zImaginary = powerImaginary + cImaginary;
+        }
+        result[0] = zReal;
+        result[1] = zImaginary;
+        result[2] = 0;
+        return i;
+
+    }
+
+    /**Checks whether a point of the Mandelbrot set is known to be interior without iterating it to max iterations*/
+    public static boolean isKnownInterior(ComplexNumber c, double power, ComplexNumber zStart) {
+
+        if (power == 2 && zStart.getReal() == 0 && zStart.getImaginary() == 0) return c.isCardioid() || c.isPeriodTwoBulb();
+        return isInMainComponent(c, power, zStart);
+
+    }
+
+    /**Checks whether c lies in the main component of a Multibrot set, and the orbit from zStart is caught there*/
+    public static boolean isInMainComponent(ComplexNumber c, double power, ComplexNumber zStart) {
+
+        if (power % 1 != 0 || power < 2) return false;
+        return isInMainComponent(c.getReal(), c.getImaginary(), (int)power, zStart.getReal(), zStart.getImaginary());
+
+    }
+
+    /**
+     * Checks whether z^power + c has an attracting fixed point, found with Newton's method, and whether the orbit from
+     * zStart is caught by it. The fixed point w is attracting when |w| is below d^(-1 / (d - 1)), and the orbit of 0
+     * is then always caught, while any other orbit must be seen to land in a trap around w
+     */
+    public static boolean isInMainComponent(double cReal, double cImaginary, int power, double zReal, double zImaginary) {
+
+        double criticalRadius = Math.pow(power, -1.0 / (power - 1));
+        double componentRadius = criticalRadius + Math.pow(criticalRadius, power);
+        if (cReal * cReal + cImaginary * cImaginary >= componentRadius * componentRadius) return false;
+
+        double[] w = {cReal, cImaginary};
+        double[] powerOfW = new double[2];
+        for (int i = 0; i < 32; i++) {
+            powerOfW[0] = w[0];
+            powerOfW[1] = w[1];
+            powerOf(powerOfW, power - 1);
+            double valueReal = powerOfW[0] * w[0] - powerOfW[1] * w[1] - w[0] + cReal;
+            double valueImaginary = powerOfW[0] * w[1] + powerOfW[1] * w[0] - w[1] + cImaginary;
+            double slopeReal = power * powerOfW[0] - 1;
+            double slopeImaginary = power * powerOfW[1];
+            double slopeSqr = slopeReal * slopeReal + slopeImaginary * slopeImaginary;
+            if (slopeSqr == 0) return false;
+            double stepReal = (valueReal * slopeReal + valueImaginary * slopeImaginary) / slopeSqr;
+            double stepImaginary = (valueImaginary * slopeReal - valueReal * slopeImaginary) / slopeSqr;
+            w[0] -= stepReal;
+            w[1] -= stepImaginary;
+            if (stepReal * stepReal + stepImaginary * stepImaginary < 1e-28) break;
+        }
+
+        double magnitude = Math.hypot(w[0], w[1]);
+        if (!(magnitude < criticalRadius)) return false;
+        double[] image = {w[0], w[1]};
+        step(image, power, cReal, cImaginary);
+        double error = Math.hypot(image[0] - w[0], image[1] - w[1]);
+        double trapRadius = (criticalRadius - magnitude) / 2;
+        if (power * Math.pow(magnitude + trapRadius, power - 1) * trapRadius + error >= trapRadius) return false;
+        if (zReal == 0 && zImaginary == 0) return true;
+
+        double[] z = {zReal, zImaginary};
+        for (int i = 0; i < TRAP_ITERATIONS; i++) {
+            if (Math.hypot(z[0] - w[0], z[1] - w[1]) <= trapRadius) return true;
+            if (z[0] * z[0] + z[1] * z[1] > 4) return false;
+            step(z, power, cReal, cImaginary);
+        }
+        return false;
+
+    }
+
+    /**Replaces z with z^power + c*/
+    private static void step(double[] z, int power, double cReal, double cImaginary) {
+
+        powerOf(z, power);
+        z[0] += cReal;
+        z[1] += cImaginary;
+
+    }
+
+    /**Replaces z with z^power by repeated multiplication*/
+    private static void powerOf(double[] z, int power) {
+
+        double real = z[0];
+        double imaginary = z[1];
+        double powerReal = power == 0 ? 1 : real;
+        double powerImaginary = power == 0 ? 0 : imaginary;
+        for (int p = 1; p < power; p++) {
+            double nextReal = powerReal * real - powerImaginary * imaginary;
+            powerImaginary = powerReal * imaginary + real * powerImaginary;
+            powerReal = nextReal;
+        }
+        z[0] = powerReal;
+        z[1] = powerImaginary;
+
+    }
+
+    public ComplexNumber getC() {
+        return c;
+    }
+
+    public int getPower() {
+        return power;
+    }
+
+    /**Returns the number of points in the cycle, which is zero if there is no attracting cycle*/
+    public int getPeriod() {
+        return real.length;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getTrapRadius() {
+        return trapRadius;
+    }
+
+    /**Returns the point of the cycle that the trap is centred on*/
+    public ComplexNumber getTrapCentre() {
+        return new ComplexNumber(real[0], imaginary[0]);
+    }
+
+}
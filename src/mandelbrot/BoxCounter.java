@@ -0,0 +1,135 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.util.stream.IntStream;
+
+/**
+ * Mathematical object that counts how many boxes of a given size cover the boundary of a fractal, which is
+ * the data needed to estimate the box counting dimension. The boundary is found from the iteration data
+ * (a pixel is on the boundary when it is inside the set but one of its neighbours is not) rather than from
+ * the rendered colours, so recolouring the image cannot change the estimate. A summed-area table of the
+ * boundary is built once, in parallel over rows, after which the number of boundary pixels inside any box
+ * can be read in constant time. This makes counting every box size together take about as long as a single
+ * scan of the image.
+ */
+
+public class BoxCounter {
+
+    /**Size of the boundary bitmap*/
+    private int width;
+    private int height;
+
+    /**Number of boundary pixels above and to the left of each point, with a row and column of padding*/
+    private int[] summedArea;
+
+    /**Finds the boundary from iterations, reading each chunk's value from its upper left pixel*/
+    public BoxCounter(int[][] iterations, int maxIterations, int chunkSize) {
+
+        this(findBoundary(iterations, maxIterations, chunkSize));
+
+    }
+
+    /**Constructs a BoxCounter from a bitmap where true marks a boundary pixel*/
+    public BoxCounter(boolean[][] boundary) {
+
+        this.height = boundary.length;
+        this.width = boundary[0].length;
+        this.summedArea = new int[(width + 1) * (height + 1)];
+        int stride = width + 1;
+
+        IntStream.range(0, height).parallel().forEach(y -> {
+            int rowTotal = 0;
+            int offset = (y + 1) * stride;
+            for (int x = 0; x < width; x++) {
+                if (boundary[y][x]) rowTotal++;
+                summedArea[offset + x + 1] = rowTotal;
+            }
+        });
+        IntStream.range(1, width + 1).parallel().forEach(x -> {
+            for (int y = 2; y <= height; y++) summedArea[y * stride + x] += summedArea[(y - 1) * stride + x];
+        });
+
+    }
+
+    /**Marks each pixel that is inside the set and has a 4-neighbour outside of it*/
+    public static boolean[][] findBoundary(int[][] iterations, int maxIterations, int chunkSize) {
+
+        int height = iterations.length;
+        int width = iterations[0].length;
+        boolean[][] boundary = new boolean[height][width];
+
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0; x < width; x++) {
+                if (isInside(iterations, maxIterations, chunkSize, x, y)) {
+                    boundary[y][x] = (y > 0 && !isInside(iterations, maxIterations, chunkSize, x, y - 1))
+                            || (x + 1 < width && !isInside(iterations, maxIterations, chunkSize, x + 1, y))
+                            || (y + 1 < height && !isInside(iterations, maxIterations, chunkSize, x, y + 1))
+                            || (x > 0 && !isInside(iterations, maxIterations, chunkSize, x - 1, y));
+                }
+            }
+        });
+        return boundary;
+
+    }
+
+    /**Checks whether the chunk containing a pixel reached max iterations*/
+    private static boolean isInside(int[][] iterations, int maxIterations, int chunkSize, int x, int y) {
+
+        return iterations[y - y % chunkSize][x - x % chunkSize] == maxIterations;
+
+    }
+
+    /**Returns the number of boundary pixels within a rectangle*/
+    private int boundaryPixels(int x, int y, int boxWidth, int boxHeight) {
+
+        int stride = width + 1;
+        int right = Math.min(x + boxWidth, width);
+        int bottom = Math.min(y + boxHeight, height);
+        return summedArea[bottom * stride + right] - summedArea[y * stride + right] - summedArea[bottom * stride + x] + summedArea[y * stride + x];
+
+    }
+
+    /**Counts the boxes, laid out in a grid from the upper left corner, that contain part of the boundary*/
+    public int countBoxes(int side) {
+
+        return IntStream.range(0, (height + side - 1) / side).parallel().map(row -> {
+            int count = 0;
+            for (int x = 0; x < width; x += side) {
+                if (boundaryPixels(x, row * side, side, side) > 0) count++;
+            }
+            return count;
+        }).sum();
+
+    }
+
+    /**Counts the boxes of every given side length*/
+    public int[] countBoxes(int[] sides) {
+
+        int[] counts = new int[sides.length];
+        for (int i = 0; i < sides.length; i++) counts[i] = countBoxes(sides[i]);
+        return counts;
+
+    }
+
+    /**Queues the upper left pixel of every box that contains part of the boundary, so that they can be drawn*/
+    public GenericQueue<Point> findBoxes(int side) {
+
+        GenericQueue<Point> boxes = new GenericQueue<>();
+        for (int y = 0; y < height; y += side) {
+            for (int x = 0; x < width; x += side) {
+                if (boundaryPixels(x, y, side, side) > 0) boxes.add(new Point(x, y));
+            }
+        }
+        return boxes;
+
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+}
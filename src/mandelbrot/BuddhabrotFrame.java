@@ -0,0 +1,75 @@
+package mandelbrot;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Secondary JFrame that shows a Buddhabrot or anti-Buddhabrot as it is rendered. The BuddhabrotRenderer
+ * samples on every core in the background while a Swing timer takes a snapshot of its buffers twice a
+ * second and paints it, so the image sharpens the longer the frame is left open. Closing the frame stops
+ * the renderer.
+ */
+
+public class BuddhabrotFrame extends JFrame {
+
+    /**Time between snapshots in milliseconds*/
+    private static final int SNAPSHOT_INTERVAL = 500;
+
+    private BuddhabrotRenderer renderer;
+
+    /**Latest snapshot of the renderer*/
+    private BufferedImage snapshot;
+
+    private Timer snapshotTimer;
+
+    /**Constructs a BuddhabrotFrame that renders the view of the given Mandelbrot set*/
+    public BuddhabrotFrame(MandelbrotSet mandelbrotSet, boolean anti, FractalColours colours) {
+
+        super(anti ? "Anti-Buddhabrot" : "Buddhabrot");
+
+        this.setIconImage(new ImageIcon("src\\images\\icon.png").getImage());
+        this.setResizable(false);
+        this.renderer = new BuddhabrotRenderer(mandelbrotSet, anti, colours);
+        this.snapshot = new BufferedImage(mandelbrotSet.getDimensions().width, mandelbrotSet.getDimensions().height, BufferedImage.TYPE_INT_RGB);
+
+        JPanel canvas = new JPanel() {
+            @Override
+            public void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                g.drawImage(snapshot, 0, 0, this);
+            }
+        };
+        canvas.setPreferredSize(mandelbrotSet.getDimensions());
+        this.add(canvas);
+        this.pack();
+
+        this.snapshotTimer = new Timer(SNAPSHOT_INTERVAL, ae -> {
+            snapshot = renderer.snapshot();
+            this.setTitle((anti ? "Anti-Buddhabrot" : "Buddhabrot") + " - " + renderer.getSamples() + " samples");
+            canvas.repaint();
+        });
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent we) {
+                snapshotTimer.stop();
+                try {
+                    renderer.stop();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        this.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        this.setLocation((int)(screenSize.getWidth() - this.getWidth())/2,(int)(screenSize.getHeight() - this.getHeight())/2);
+        renderer.start(PerformanceProfile.current().getThreads());
+        snapshotTimer.start();
+        this.setVisible(true);
+
+    }
+
+}
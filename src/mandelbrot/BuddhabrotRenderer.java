@@ -0,0 +1,150 @@
+package mandelbrot;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Renderer that draws the density of Mandelbrot set orbits rather than how long each point takes to escape.
+ * Random c values are iterated with the Mandelbrot set equation, and every point visited by an orbit that
+ * escapes (the Buddhabrot) or that never escapes (the anti-Buddhabrot) is added to a density buffer covering
+ * the view. Each worker thread owns its own buffer so the threads never contend over a pixel, and the buffers
+ * are only added together when a snapshot is taken. Points known to be interior by AttractingCycle can never
+ * escape, so they are rejected before iterating when drawing the Buddhabrot. The first point of each orbit is c
+ * itself, which is left out as it would only add a uniform disc of every sampled point. Sampling continues until the
+ * renderer is stopped, and snapshots can be taken at any time to show the image as it builds up.
+ */
+
+public class BuddhabrotRenderer {
+
+    /**Number of c values each worker samples between checks of whether it should stop*/
+    private static final int BATCH_SIZE = 1024;
+
+    /**Fractal whose view, max iterations, power and zStart are used*/
+    private MandelbrotSet template;
+
+    /**Whether non-escaping orbits are accumulated instead of escaping ones*/
+    private boolean anti;
+
+    /**Colours that the snapshots are scaled between*/
+    private FractalColours colours;
+
+    /**Density buffer of each worker thread, row by row*/
+    private int[][] densities;
+
+    /**Number of c values sampled by each worker thread*/
+    private long[] samples;
+
+    private Thread[] workers;
+    private volatile boolean running;
+
+    /**Constructs a renderer for the view of the given Mandelbrot set*/
+    public BuddhabrotRenderer(MandelbrotSet template, boolean anti, FractalColours colours) {
+
+        this.template = template;
+        this.anti = anti;
+        this.colours = colours;
+
+    }
+
+    /**Starts sampling on the given number of worker threads*/
+    public void start(int threads) {
+
+        int width = template.getIterations()[0].length;
+        int height = template.getIterations().length;
+        densities = new int[threads][width * height];
+        samples = new long[threads];
+        workers = new Thread[threads];
+        running = true;
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            workers[t] = new Thread(() -> sample(index), "Buddhabrot-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+
+    }
+
+    /**Stops every worker thread and waits for them to finish*/
+    public void stop() throws InterruptedException {
+
+        running = false;
+        if (workers != null) {
+            for (Thread worker: workers) worker.join();
+        }
+
+    }
+
+    /**Samples random c values within the bailout circle until stopped, adding their orbits to this thread's buffer*/
+    private void sample(int index) {
+
+        int[] density = densities[index];
+        OrbitBuffer orbit = new OrbitBuffer();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int maxIterations = template.getMaxIterations();
+        boolean shortcuts = template.getFormula() == null;
+        double zoom = template.getZoom();
+        double centreReal = template.getCentre().getReal();
+        double centreImaginary = template.getCentre().getImaginary();
+        int width = template.getIterations()[0].length;
+        int height = template.getIterations().length;
+
+        while (running) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+
+                ComplexNumber c = new ComplexNumber(random.nextDouble(-2, 2), random.nextDouble(-2, 2));
+                if (c.sqrOfMagnitude() > 4) continue;
+                if (!anti && shortcuts && AttractingCycle.isKnownInterior(c, template.getPower(), template.getzStart())) continue;
+
+                template.fillOrbit(c, orbit);
+                boolean escaped = orbit.getLength() < maxIterations;
+                if (escaped == anti) continue;
+
+                for (int j = 1; j < orbit.getLength(); j++) {
+                    int x = (int)Math.floor((orbit.getReal(j) - centreReal) * zoom) + width / 2;
+                    int y = (int)Math.floor(-(orbit.getImaginary(j) - centreImaginary) * zoom) + height / 2;
+                    if (x >= 0 && x < width && y >= 0 && y < height) density[y * width + x]++;
+                }
+
+            }
+            samples[index] += BATCH_SIZE;
+        }
+
+    }
+
+    /**Adds the buffers of every thread together and scales the result between the outer and edge colours*/
+    public BufferedImage snapshot() {
+
+        int width = template.getIterations()[0].length;
+        int height = template.getIterations().length;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] total = new int[width * height];
+        int max = 1;
+        for (int[] density: densities) {
+            for (int i = 0; i < total.length; i++) total[i] += density[i];
+        }
+        for (int count: total) max = Math.max(max, count);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double scale = Math.sqrt(total[y * width + x] / (double)max);
+                image.setRGB(x, y, colours.scaleBetweenColours(scale).getRGB());
+            }
+        }
+        return image;
+
+    }
+
+    /**Returns the number of c values sampled so far by every thread*/
+    public long getSamples() {
+
+        long total = 0;
+        for (long count: samples) total += count;
+        return total;
+
+    }
+
+    public boolean isAnti() {
+        return anti;
+    }
+
+}
@@ -0,0 +1,25 @@
+package mandelbrot;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event that covers the colouring of a fractal image by an ArgandDiagram, including
+ * the building of the histogram when histogram colouring is in use.
+ */
+
+@Name("mandelbrot.Colouring")
+@Label("Colouring")
+@Category({"Mandelbrot Viewer", "Rendering"})
+@Description("A colouring pass that turns iterations into an image")
+class ColouringEvent extends Event {
+
+    @Label("Fractal")
+    String fractal;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Pixels")
+    int pixels;
+
+}
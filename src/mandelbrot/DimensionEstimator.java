@@ -0,0 +1,200 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Headless counterpart to the DimensionFrame that estimates the box counting dimension of a fractal's boundary
+ * at resolutions far beyond the size of the screen (up to 32768 by 32768 pixels). The image is never held in
+ * memory all at once: it is split into square tiles which are iterated on a pool of worker threads, and as
+ * each tile finishes, its boxes are counted at every power of two side length that fits within it and added
+ * to running totals. Each tile is iterated with a one pixel border so that the boundary can be found along
+ * its edges, and whether each tile holds any boundary is kept so that boxes larger than a tile can be counted
+ * at the end. Only a handful of tiles are ever in flight at once, so memory use does not grow with resolution.
+ * The log-log points are then passed to the RegressionCalculator to find the gradient and its confidence interval.
+ */
+
+public class DimensionEstimator {
+
+    /**Fractal whose view (centre, power, max iterations and so on) is measured*/
+    private FractalSet template;
+
+    /**Side length in pixels of the square image and of each tile, both powers of two*/
+    private int resolution;
+    private int tileSize;
+
+    /**Smallest and largest box side lengths used in the regression*/
+    private int minBoxSize;
+    private int maxBoxSize;
+
+    /**Number of worker threads*/
+    private int threads;
+
+    /**Running totals of boxes at each side length, indexed by the power of two of the side*/
+    private AtomicLongArray boxCounts;
+
+    /**Whether each tile contains part of the boundary*/
+    private boolean[][] occupiedTiles;
+
+    /**Number of tiles finished so far*/
+    private AtomicInteger tilesCompleted;
+
+    /**Results of the regression*/
+    private double[] logOfSideLengths;
+    private double[] logOfNoBoxes;
+    private double gradient;
+    private double confidenceInterval;
+
+    /**Constructs an estimator that measures the template's current view at the given resolution*/
+    public DimensionEstimator(FractalSet template, int resolution, int tileSize) {
+
+        if (Integer.bitCount(resolution) != 1 || Integer.bitCount(tileSize) != 1 || tileSize > resolution) {
+            throw new IllegalArgumentException("Resolution and tile size must be powers of two with the tile no larger than the image");
+        }
+
+        this.template = template;
+        this.resolution = resolution;
+        this.tileSize = tileSize;
+        this.minBoxSize = 2;
+        this.maxBoxSize = Math.max(2, resolution / 16);
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.boxCounts = new AtomicLongArray(Integer.numberOfTrailingZeros(resolution) + 1);
+        this.occupiedTiles = new boolean[resolution / tileSize][resolution / tileSize];
+        this.tilesCompleted = new AtomicInteger();
+
+    }
+
+    /**Iterates and counts every tile, then fits the regression line and returns the estimated dimension*/
+    public double estimate() throws InterruptedException {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        int tilesPerSide = resolution / tileSize;
+        for (int tileY = 0; tileY < tilesPerSide; tileY++) {
+            for (int tileX = 0; tileX < tilesPerSide; tileX++) {
+                final int x = tileX;
+                final int y = tileY;
+                executor.execute(() -> countTile(x, y));
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        countLargeBoxes();
+        calculateRegression();
+        return gradient;
+
+    }
+
+    /**Iterates a single tile with a one pixel border and adds its boxes to the totals*/
+    private void countTile(int tileX, int tileY) {
+
+        double zoom = template.getZoom() * resolution / template.getDimensions().width;
+        ComplexNumber centre = template.getCentre();
+        int borderedSize = tileSize + 2;
+        double offsetX = (tileX * tileSize - 1 + borderedSize / 2 - resolution / 2) / zoom;
+        double offsetY = (tileY * tileSize - 1 + borderedSize / 2 - resolution / 2) / zoom;
+
+        FractalSet tileSet = template.clone();
+        tileSet.setDimensions(new Dimension(borderedSize, borderedSize));
+        tileSet.setChunkSize(1);
+        tileSet.setZoom(zoom);
+        tileSet.setCentre(new ComplexNumber(centre.getReal() + offsetX, centre.getImaginary() - offsetY));
+        tileSet.iterate(false);
+
+        boolean[][] bordered = BoxCounter.findBoundary(tileSet.getIterations(), tileSet.getMaxIterations(), 1);
+        boolean[][] boundary = new boolean[tileSize][tileSize];
+        for (int y = 0; y < tileSize; y++) System.arraycopy(bordered[y + 1], 1, boundary[y], 0, tileSize);
+
+        BoxCounter boxCounter = new BoxCounter(boundary);
+        for (int power = 0; (1 << power) <= tileSize; power++) {
+            boxCounts.addAndGet(power, boxCounter.countBoxes(1 << power));
+        }
+        occupiedTiles[tileY][tileX] = boxCounter.countBoxes(tileSize) > 0;
+        tilesCompleted.incrementAndGet();
+
+    }
+
+    /**Counts boxes larger than a tile by treating each tile as a single pixel*/
+    private void countLargeBoxes() {
+
+        BoxCounter tileCounter = new BoxCounter(occupiedTiles);
+        int tilePower = Integer.numberOfTrailingZeros(tileSize);
+        for (int factor = 2; factor <= occupiedTiles.length; factor *= 2) {
+            boxCounts.set(tilePower + Integer.numberOfTrailingZeros(factor), tileCounter.countBoxes(factor));
+        }
+
+    }
+
+    /**Fits a line to log(N) against log(1/ε) over the chosen range of box sizes*/
+    private void calculateRegression() {
+
+        int points = 0;
+        for (int side = minBoxSize; side <= maxBoxSize; side *= 2) {
+            if (boxCounts.get(Integer.numberOfTrailingZeros(side)) > 0) points++;
+        }
+
+        logOfSideLengths = new double[points];
+        logOfNoBoxes = new double[points];
+        int i = 0;
+        for (int side = minBoxSize; side <= maxBoxSize; side *= 2) {
+            long count = boxCounts.get(Integer.numberOfTrailingZeros(side));
+            if (count > 0) {
+                logOfSideLengths[i] = Math.log(1.0 / side);
+                logOfNoBoxes[i] = Math.log(count);
+                i++;
+            }
+        }
+
+        if (points < 2) {
+            gradient = confidenceInterval = Double.NaN;
+            return;
+        }
+        RegressionCalculator regressionCalculator = new RegressionCalculator(logOfSideLengths, logOfNoBoxes);
+        gradient = regressionCalculator.calculateGradient();
+        confidenceInterval = points > 2 ? regressionCalculator.calculateConfidenceInterval() : Double.NaN;
+
+    }
+
+    /**Returns the number of boxes counted with the given power of two side length*/
+    public long getBoxCount(int side) {
+        return boxCounts.get(Integer.numberOfTrailingZeros(side));
+    }
+
+    public int getTilesCompleted() {
+        return tilesCompleted.get();
+    }
+
+    public int getTileCount() {
+        return occupiedTiles.length * occupiedTiles.length;
+    }
+
+    public double getGradient() {
+        return gradient;
+    }
+
+    public double getConfidenceInterval() {
+        return confidenceInterval;
+    }
+
+    public double[] getLogOfSideLengths() {
+        return logOfSideLengths;
+    }
+
+    public double[] getLogOfNoBoxes() {
+        return logOfNoBoxes;
+    }
+
+    public void setBoxSizeRange(int minBoxSize, int maxBoxSize) {
+        this.minBoxSize = minBoxSize;
+        this.maxBoxSize = maxBoxSize;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+}
@@ -2,12 +2,14 @@ package mandelbrot;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
 
 /**
  * Secondary JFrame that allows for the user to be able to find the estimated fractal dimension of a fractal.
  * This object uses the box counting method to find the approximate Minkowski–Bouligand dimension of the boundary.
  * As well as this, it graphically shows the user what is happening on each iteration of the box counting method.
+ * Every box size is counted by a BoxCounter as soon as the fractal has been iterated, so clicking through
+ * the iterations only changes what is drawn. The boundary of a Julia set can instead be traced by the
+ * InverseIterationRenderer, which also finds boundaries that have no interior for escape time to border.
  * The more self similar the fractal, the higher the expected fractal dimension.
  */
 
@@ -30,6 +32,15 @@ public class DimensionFrame extends JFrame {
     /*The total number of boxes counted in each iteration**/
     private int boxes;
 
+    /**Whether a Julia set's boundary is traced by inverse iteration instead of found from the iteration data*/
+    private boolean useInverseIteration;
+
+    /**Counts boxes over the boundary found in the iteration data*/
+    private BoxCounter boxCounter;
+
+    /**Number of boxes counted at each box size*/
+    private int[] boxCounts;
+
     /**Array of log(N) where N is number of boxes*/
     double[] logOfNoBoxes;
 
@@ -52,6 +63,8 @@ public class DimensionFrame extends JFrame {
         this.iteration = 0;
         this.initialLength = 512;
         this.boxes = 0;
+        this.useInverseIteration = conditions.readyToUseInverseIteration && fractalSet.getType() == FractalType.JULIA
+                && fractalSet.getPower() % 1 == 0 && fractalSet.getPower() >= 2;
 
         setupComponents(colours, conditions);
 
@@ -61,6 +74,7 @@ public class DimensionFrame extends JFrame {
 
         this.fractalSet.setDimensions(new Dimension(this.getWidth(), this.getHeight()));
         this.fractalSet.iterate(false);
+        countAllBoxes(size);
 
         this.setLocation((int)(screenSize.getWidth() - this.getWidth())/2,(int)(screenSize.getHeight() - this.getHeight())/2);
         this.setVisible(true);
@@ -92,8 +106,6 @@ public class DimensionFrame extends JFrame {
             argandDiagram.currentLength /= 2;
             argandDiagram.start = true;
             updateGrids();
-            logOfNoBoxes[iteration - 1] = Math.log(boxes);
-            logOfSideLengths[iteration - 1] = Math.log(1.0 / argandDiagram.currentLength);
         }
         else if (!argandDiagram.start)  {
 
@@ -105,54 +117,36 @@ public class DimensionFrame extends JFrame {
 
     }
 
-    /**Counts the number of grids that cover the boundary of the fractal and queues them for drawing*/
-    public void updateGrids() {
-        
-        boxes = 0;
-        for (int y = 0; y < argandDiagram.getHeight(); y += argandDiagram.currentLength - 1) {
-
-            for (int x = 0; x < argandDiagram.getWidth(); x += argandDiagram.currentLength - 1) {
-
-                boolean found = false;
-
-                for (int boxY = y; boxY <= y + argandDiagram.currentLength - 2 && boxY < argandDiagram.getHeight() && !found; boxY++) {
-
-                    for (int boxX = x; boxX <= x + argandDiagram.currentLength - 2 && boxX < argandDiagram.getWidth() && !found; boxX++) {
-
-                        if (argandDiagram.getColorAtPixel(boxX, boxY).equals(argandDiagram.colours.getInner()))  {
-
-                            ArrayList<Color> neighbours = new ArrayList<>();
-                            if (boxY - 1 >= 0) neighbours.add(argandDiagram.getColorAtPixel(boxX, boxY - 1));
-                            if (boxX + 1 < argandDiagram.getWidth()) neighbours.add(argandDiagram.getColorAtPixel(boxX + 1, boxY));
-                            if (boxY + 1 < argandDiagram.getHeight()) neighbours.add(argandDiagram.getColorAtPixel(boxX, boxY + 1));
-                            if (boxX - 1 >= 0)neighbours.add(argandDiagram.getColorAtPixel(boxX - 1, boxY));
-
-                            for (Color color: neighbours) {
-
-                                if (!color.equals(argandDiagram.colours.getInner())) {
-
-                                    argandDiagram.intersectedBoxes.add(new Point(x, y));
-                                    boxes++;
-                                    found = true;
-                                    break;
-
-                                }
-
-                            }
-
-                        }
-
-                    }
-
-                }
+    /**Counts the boxes at every side length up front and fills in the log-log data for the regression*/
+    private void countAllBoxes(int size) {
 
+        if (useInverseIteration) {
+            try {
+                InverseIterationRenderer renderer = new InverseIterationRenderer(fractalSet);
+                renderer.setThreads(PerformanceProfile.current().getThreads());
+                boxCounter = new BoxCounter(renderer.render());
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
-
+        }
+        if (boxCounter == null) boxCounter = new BoxCounter(fractalSet.getIterations(), fractalSet.getMaxIterations(), fractalSet.getChunkSize());
+        int[] sides = new int[size];
+        for (int i = 0; i < size; i++) sides[i] = (initialLength >> (i + 1)) - 1;
+        boxCounts = boxCounter.countBoxes(sides);
+
+        for (int i = 0; i < size; i++) {
+            logOfNoBoxes[i] = Math.log(boxCounts[i]);
+            logOfSideLengths[i] = Math.log(1.0 / (initialLength >> (i + 1)));
         }
 
     }
 
+    /**Queues the boxes that cover the boundary of the fractal at the current side length for drawing*/
+    public void updateGrids() {
 
+        boxes = boxCounts[iteration - 1];
+        argandDiagram.intersectedBoxes = boxCounter.findBoxes(argandDiagram.currentLength - 1);
 
+    }
 
 }
@@ -0,0 +1,270 @@
+package mandelbrot;
+
+/**
+ * Sampler that iterates a fractal while skipping pixels that are far from its boundary. Each pixel is iterated with
+ * a kernel that also tracks the derivative of the orbit, and once it escapes the orbit is continued to a large
+ * radius so that the exterior distance estimate |z| ln|z| / |z'| is accurate. By the Koebe quarter theorem the set
+ * is no closer than a quarter of this, so every pixel within that disc is provably outside the set and is filled
+ * without being iterated. Its iteration count is predicted from the potential of the centre pixel and the gradient
+ * of the potential, so the bands of colour carry on across the disc. Close to the boundary the discs shrink below
+ * a pixel and every pixel is iterated as normal, so the work saved grows with the amount of open exterior in view.
+ * The estimate is only a bound when the complement of the set is connected to infinity by the Böttcher map, so it
+ * is used for the Mandelbrot set from zStart 0 and for connected Julia sets, with integer powers and no formula.
+ */
+
+public class DistanceEstimateSampler {
+
+    /**Fraction of the distance estimate that is trusted as a lower bound on the distance to the set*/
+    private static final double SAFETY = 0.25;
+
+    /**Squared radius that escaped orbits are continued to, and the most iterations they are given to reach it*/
+    private static final double ESCAPE_RADIUS_SQR = 1e20;
+    private static final int EXTRA_ITERATIONS = 64;
+
+    /**The fractal being sampled and the properties of its equation*/
+    private FractalSet fractalSet;
+    private boolean julia;
+    private int power;
+    private int maxIterations;
+    private double zoom;
+
+    /**Whether discs around escaped pixels are filled, which is only turned off to measure the kernel on its own*/
+    private boolean fillingDiscs = true;
+
+    /**Attracting cycle of a Julia set, whose trap marks interior points early*/
+    private AttractingCycle attractingCycle;
+
+    /**Work done during the pass*/
+    private long iterationsExecuted;
+    private long pixelsSkipped;
+    private int interiorPixels;
+
+    /**Final z, distance estimate, smooth escape count and its gradient from the last call of the kernel*/
+    private double escapeReal;
+    private double escapeImaginary;
+    private double distance;
+    private double escapeCount;
+    private double gradientReal;
+    private double gradientImaginary;
+
+    /**Constructs a sampler for the fractal's current view*/
+    public DistanceEstimateSampler(FractalSet fractalSet) {
+
+        this.fractalSet = fractalSet;
+        this.julia = fractalSet.getType() == FractalType.JULIA;
+        this.power = (int)fractalSet.getPower();
+        this.maxIterations = fractalSet.getMaxIterations();
+        this.zoom = fractalSet.getZoom();
+        if (julia) this.attractingCycle = AttractingCycle.find(fractalSet.getC(), power);
+
+    }
+
+    /**Checks whether the distance estimate is a bound for the fractal's equation*/
+    public static boolean isSupported(FractalSet fractalSet) {
+
+        if (fractalSet.getFormula() != null || fractalSet.getPower() % 1 != 0 || fractalSet.getPower() < 2) return false;
+        if (fractalSet.getType() == FractalType.MANDELBROT) {
+            return fractalSet.getzStart().getReal() == 0 && fractalSet.getzStart().getImaginary() == 0;
+        }
+
+        double cReal = fractalSet.getC().getReal();
+        double cImaginary = fractalSet.getC().getImaginary();
+        double zReal = 0;
+        double zImaginary = 0;
+        for (int i = 0; i < fractalSet.getMaxIterations(); i++) {
+            if (zReal * zReal + zImaginary * zImaginary > 4) return false;
+            double powerReal = zReal;
+            double powerImaginary = zImaginary;
+            for (int p = 1; p < fractalSet.getPower(); p++) {
+                double nextReal = powerReal * zReal - powerImaginary * zImaginary;
+                powerImaginary = powerReal * zImaginary + zReal * powerImaginary;
+                powerReal = nextReal;
+            }
+            zReal = powerReal + cReal;
+            zImaginary = powerImaginary + cImaginary;
+        }
+        return true;
+
+    }
+
+    /**Fills every pixel on the current chunk grid, iterating those near the boundary and filling discs elsewhere*/
+    public void sample(boolean partOfSuccession) {
+
+        int[][] iterations = fractalSet.getIterations();
+        int height = iterations.length;
+        int width = iterations[0].length;
+        int chunkSize = fractalSet.getChunkSize();
+        boolean[][] done = partOfSuccession ? fractalSet.getRefined() : new boolean[height][width];
+
+        for (int y = 0; y < height; y += chunkSize) {
+            if (partOfSuccession && Thread.currentThread().isInterrupted()) return;
+            for (int x = 0; x < width; x += chunkSize) {
+
+                if (done[y][x]) continue;
+                done[y][x] = true;
+                long start = fractalSet.isRecordingCosts() ? System.nanoTime() : 0;
+                long startIterations = iterationsExecuted;
+                int count = samplePixel(x, y);
+                if (fractalSet.isRecordingCosts()) {
+                    fractalSet.getIterationCosts()[y][x] = (int)(iterationsExecuted - startIterations);
+                    fractalSet.getTimeCosts()[y][x] = (int)Math.min(Integer.MAX_VALUE, System.nanoTime() - start);
+                }
+                if (fillingDiscs && count > 1 && count < maxIterations) fillDisc(x, y, count, done);
+
+            }
+        }
+
+    }
+
+    /**Works out the iterations of a single pixel, returning its count*/
+    private int samplePixel(int x, int y) {
+
+        int[][] iterations = fractalSet.getIterations();
+        ComplexNumber[][] lastResults = fractalSet.getLastResults();
+        ComplexNumber point = fractalSet.pixelToComplexNumber(x, y);
+        int count;
+
+        if (point.sqrOfMagnitude() > 4) {
+            count = 1;
+            lastResults[y][x] = julia ? point.pow(fractalSet.getPower()).add(fractalSet.getC()) : point;
+            pixelsSkipped++;
+        }
+        else if (!julia && AttractingCycle.isKnownInterior(point, power, fractalSet.getzStart())) {
+            count = maxIterations;
+            lastResults[y][x] = point;
+            pixelsSkipped++;
+        }
+        else {
+            if (julia) count = iterate(point.getReal(), point.getImaginary(), fractalSet.getC().getReal(), fractalSet.getC().getImaginary(), 1);
+            else count = iterate(0, 0, point.getReal(), point.getImaginary(), 0);
+            lastResults[y][x] = new ComplexNumber(escapeReal, escapeImaginary);
+        }
+
+        if (count == maxIterations) interiorPixels++;
+        iterations[y][x] = count;
+        return count;
+
+    }
+
+    /**
+     * Iterates z^power + c while tracking the derivative, with respect to c for the Mandelbrot set (starting at 0)
+     * or to z for a Julia set (starting at 1), returning the escape count. When the orbit escapes, it is continued
+     * out to a large radius to find the distance estimate, the smooth escape count and the gradient of the latter
+     */
+    private int iterate(double zReal, double zImaginary, double cReal, double cImaginary, double derivativeStart) {
+
+        boolean trapping = attractingCycle != null && attractingCycle.getPeriod() > 0;
+        double trapReal = trapping ? attractingCycle.getTrapCentre().getReal() : 0;
+        double trapImaginary = trapping ? attractingCycle.getTrapCentre().getImaginary() : 0;
+        double trapRadiusSqr = trapping ? attractingCycle.getTrapRadius() * attractingCycle.getTrapRadius() : -1;
+        double constant = julia ? 0 : 1;
+        double derivativeReal = derivativeStart;
+        double derivativeImaginary = 0;
+        int count = -1;
+        int i;
+
+        for (i = 0; i < maxIterations + EXTRA_ITERATIONS; i++) {
+            double sqrOfMagnitude = zReal * zReal + zImaginary * zImaginary;
+            if (count < 0) {
+                if (i == maxIterations) break;
+                if (sqrOfMagnitude > 4) {
+                    count = i;
+                    escapeReal = zReal;
+                    escapeImaginary = zImaginary;
+                }
+                else if ((zReal - trapReal) * (zReal - trapReal) + (zImaginary - trapImaginary) * (zImaginary - trapImaginary) <= trapRadiusSqr) {
+                    break;
+                }
+            }
+            if (count >= 0 && (sqrOfMagnitude > ESCAPE_RADIUS_SQR || i == count + EXTRA_ITERATIONS)) break;
+
+            double powerReal = zReal;
+            double powerImaginary = zImaginary;
+            for (int p = 2; p < power; p++) {
+                double nextReal = powerReal * zReal - powerImaginary * zImaginary;
+                powerImaginary = powerReal * zImaginary + zReal * powerImaginary;
+                powerReal = nextReal;
+            }
+            double nextDerivativeReal = power * (powerReal * derivativeReal - powerImaginary * derivativeImaginary) + constant;
+            derivativeImaginary = power * (powerReal * derivativeImaginary + powerImaginary * derivativeReal);
+            derivativeReal = nextDerivativeReal;
+            double nextReal = powerReal * zReal - powerImaginary * zImaginary + cReal;
+            zImaginary = powerReal * zImaginary + zReal * powerImaginary + cImaginary;
+            zReal = nextReal;
+        }
+        iterationsExecuted += i;
+
+        if (count < 0) {
+            escapeReal = zReal;
+            escapeImaginary = zImaginary;
+            distance = 0;
+            return maxIterations;
+        }
+
+        double sqrOfMagnitude = zReal * zReal + zImaginary * zImaginary;
+        double logOfMagnitude = Math.log(sqrOfMagnitude) / 2;
+        distance = Math.sqrt(sqrOfMagnitude) * logOfMagnitude / Math.hypot(derivativeReal, derivativeImaginary);
+        escapeCount = i + Math.log(Math.log(2) / logOfMagnitude) / Math.log(power);
+        double scale = sqrOfMagnitude * logOfMagnitude * Math.log(power);
+        gradientReal = (derivativeReal * zReal + derivativeImaginary * zImaginary) / scale;
+        gradientImaginary = (derivativeImaginary * zReal - derivativeReal * zImaginary) / scale;
+        return count;
+
+    }
+
+    /**Fills the pixels on the chunk grid that lie within the safe part of the distance estimate of an escaped pixel*/
+    private void fillDisc(int centreX, int centreY, int count, boolean[][] done) {
+
+        if (!(distance > 0) || Double.isInfinite(distance) || Double.isNaN(escapeCount + gradientReal + gradientImaginary)) return;
+        int chunkSize = fractalSet.getChunkSize();
+        double radius = SAFETY * distance * zoom;
+        if (radius < chunkSize) return;
+
+        int[][] iterations = fractalSet.getIterations();
+        ComplexNumber[][] lastResults = fractalSet.getLastResults();
+        ComplexNumber lastResult = lastResults[centreY][centreX];
+        int reach = (int)Math.min(radius, Math.max(iterations.length, iterations[0].length)) / chunkSize * chunkSize;
+        double centreBand = Math.floor(escapeCount);
+
+        for (int y = Math.max(0, centreY - reach); y <= Math.min(iterations.length - 1, centreY + reach); y += chunkSize) {
+            for (int x = Math.max(0, centreX - reach); x <= Math.min(iterations[0].length - 1, centreX + reach); x += chunkSize) {
+
+                if (done[y][x]) continue;
+                int offsetX = x - centreX;
+                int offsetY = y - centreY;
+                if (offsetX * (double)offsetX + offsetY * (double)offsetY > radius * radius) continue;
+
+                double deltaReal = offsetX / zoom;
+                double deltaImaginary = -offsetY / zoom;
+                double band = Math.floor(escapeCount - (deltaReal * gradientReal - deltaImaginary * gradientImaginary));
+                iterations[y][x] = (int)Math.max(1, Math.min(maxIterations - 1, count + band - centreBand));
+                lastResults[y][x] = lastResult;
+                done[y][x] = true;
+                pixelsSkipped++;
+                if (fractalSet.isRecordingCosts()) {
+                    fractalSet.getIterationCosts()[y][x] = 0;
+                    fractalSet.getTimeCosts()[y][x] = 0;
+                }
+
+            }
+        }
+
+    }
+
+    public void setFillingDiscs(boolean fillingDiscs) {
+        this.fillingDiscs = fillingDiscs;
+    }
+
+    public long getIterationsExecuted() {
+        return iterationsExecuted;
+    }
+
+    public long getPixelsSkipped() {
+        return pixelsSkipped;
+    }
+
+    public int getInteriorPixels() {
+        return interiorPixels;
+    }
+
+}
@@ -17,6 +17,18 @@ public class DrawingConditions {
     public boolean readyToDrawCoords;
     public boolean readyToColourPalette;
     public boolean readyToHistogramColour;
+    public boolean readyToDrawMetrics;
+    public boolean readyToDrawIterationHeatmap;
+    public boolean readyToDrawTimeHeatmap;
+    public boolean readyToUseInverseIteration;
+    public boolean readyToUseDistanceEstimation;
+    public boolean readyToAntiAlias;
+    public boolean readyToRefineWhileIdle;
+    public boolean readyToUseDynamicResolution;
+    public boolean readyToPreview;
+    public boolean readyToPreviewJuliaOnHover;
+    public boolean readyToAutoIterate;
+    public boolean readyToRecordPreview;
 
     /**Constructs an empty object*/
     public DrawingConditions() {
@@ -34,6 +46,18 @@ public class DrawingConditions {
         clone.readyToDrawCoords = this.readyToDrawCoords;
         clone.readyToColourPalette = this.readyToColourPalette;
         clone.readyToHistogramColour = this.readyToHistogramColour;
+        clone.readyToDrawMetrics = this.readyToDrawMetrics;
+        clone.readyToDrawIterationHeatmap = this.readyToDrawIterationHeatmap;
+        clone.readyToDrawTimeHeatmap = this.readyToDrawTimeHeatmap;
+        clone.readyToUseInverseIteration = this.readyToUseInverseIteration;
+        clone.readyToUseDistanceEstimation = this.readyToUseDistanceEstimation;
+        clone.readyToAntiAlias = this.readyToAntiAlias;
+        clone.readyToRefineWhileIdle = this.readyToRefineWhileIdle;
+        clone.readyToUseDynamicResolution = this.readyToUseDynamicResolution;
+        clone.readyToPreview = this.readyToPreview;
+        clone.readyToPreviewJuliaOnHover = this.readyToPreviewJuliaOnHover;
+        clone.readyToAutoIterate = this.readyToAutoIterate;
+        clone.readyToRecordPreview = this.readyToRecordPreview;
 
         return clone;
 
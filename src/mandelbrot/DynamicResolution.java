@@ -0,0 +1,74 @@
+package mandelbrot;
+
+/**
+ * Controller that keeps interaction smooth by drawing the images at a lower resolution while the user drags or
+ * zooms. The time taken to iterate each frame is measured and divided by the number of pixels that were iterated,
+ * and a moving average of this cost is used to predict how long the next frame would take at each chunk size. Each
+ * frame is then drawn at the finest chunk size that is predicted to fit within the target frame time, so cheap views
+ * stay at full resolution while deep views with high max iterations or large windows fall back to coarser chunks.
+ * Chunk sizes are the user's chosen chunk size doubled, so that successive refinement can halve its way back to it.
+ */
+
+public class DynamicResolution {
+
+    /**Default time that each interactive frame should take to iterate, in nanoseconds*/
+    public static final long TARGET_FRAME_TIME = 16_000_000;
+
+    /**Coarsest chunk size that frames are drawn at, however slow the view is*/
+    private static final int MAX_CHUNK_SIZE = 16;
+
+    /**Weight given to the latest frame in the moving average of the cost of a pixel*/
+    private static final double SMOOTHING = 0.5;
+
+    /**Time that each frame should take to iterate, in nanoseconds*/
+    private long targetFrameTime;
+
+    /**Moving average of the nanoseconds taken to iterate each pixel, zero before the first frame*/
+    private double pixelCost;
+
+    /**Constructs a controller that aims for the given frame time in nanoseconds*/
+    public DynamicResolution(long targetFrameTime) {
+
+        this.targetFrameTime = targetFrameTime;
+
+    }
+
+    /**Chooses the finest chunk size, from the given one doubling, that should iterate the pixels within the frame time*/
+    public int chooseChunkSize(int width, int height, int minChunkSize) {
+
+        if (pixelCost == 0) return minChunkSize;
+        int chunkSize = minChunkSize;
+        while (chunkSize * 2 <= MAX_CHUNK_SIZE && pixelCost * countPixels(width, height, chunkSize) > targetFrameTime) chunkSize *= 2;
+        return chunkSize;
+
+    }
+
+    /**Records how long it took to iterate a number of pixels, updating the predicted cost of each pixel*/
+    public void recordFrame(long nanoseconds, long pixels) {
+
+        if (pixels <= 0) return;
+        double cost = nanoseconds / (double)pixels;
+        pixelCost = pixelCost == 0 ? cost : SMOOTHING * cost + (1 - SMOOTHING) * pixelCost;
+
+    }
+
+    /**Returns the number of pixels iterated when an image is drawn with a chunk size*/
+    public static long countPixels(int width, int height, int chunkSize) {
+
+        return (long)((width + chunkSize - 1) / chunkSize) * ((height + chunkSize - 1) / chunkSize);
+
+    }
+
+    public long getTargetFrameTime() {
+        return targetFrameTime;
+    }
+
+    public void setTargetFrameTime(long targetFrameTime) {
+        this.targetFrameTime = targetFrameTime;
+    }
+
+    public double getPixelCost() {
+        return pixelCost;
+    }
+
+}
@@ -0,0 +1,121 @@
+package mandelbrot;
+
+/**
+ * Anti-aliasing sampler that only supersamples the pixels on edges. A pixel whose iteration count differs from the
+ * pixel to its right or below it lies on a boundary, either of the set itself or between two bands of colour, and
+ * these are the pixels that shimmer and alias with a single sample. Each of them is split into a grid of cells and
+ * one sample is taken at a jittered point within every cell, through the same kernel as the pixel itself, and the
+ * colouring stage then averages the colours of the samples. Pixels away from edges keep their single sample, so the
+ * cost is a small fraction of supersampling the whole image. The jitter is a hash of the pixel and cell rather than
+ * random, so the same view always comes out the same and does not flicker between redraws.
+ */
+
+public class EdgeSupersampler {
+
+    /**Side of the grid of samples used when anti-aliasing is switched on from the menu*/
+    public static final int DEFAULT_GRID = 3;
+
+    /**The fractal being supersampled and the side of the grid of samples taken in each edge pixel*/
+    private FractalSet fractalSet;
+    private int grid;
+
+    /**Number of edge pixels found in the last pass*/
+    private int edgePixels;
+
+    /**Constructs a sampler that takes grid by grid samples in each edge pixel of the fractal*/
+    public EdgeSupersampler(FractalSet fractalSet, int grid) {
+
+        this.fractalSet = fractalSet;
+        this.grid = grid;
+
+    }
+
+    /**Finds the edge pixels of the fractal's full resolution iterations and returns their extra samples, null elsewhere*/
+    public int[][][] sample() {
+
+        int[][] iterations = fractalSet.getIterations();
+        int height = iterations.length;
+        int width = iterations[0].length;
+        boolean[][] edges = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x + 1 < width && iterations[y][x] != iterations[y][x + 1]) {
+                    edges[y][x] = true;
+                    edges[y][x + 1] = true;
+                }
+                if (y + 1 < height && iterations[y][x] != iterations[y + 1][x]) {
+                    edges[y][x] = true;
+                    edges[y + 1][x] = true;
+                }
+            }
+        }
+
+        int[][][] subSamples = new int[height][width][];
+        edgePixels = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!edges[y][x]) continue;
+                subSamples[y][x] = samplePixel(x, y);
+                edgePixels++;
+            }
+        }
+        return subSamples;
+
+    }
+
+    /**Takes a jittered sample in each cell of the pixel's grid, leaving the pixel's own data as it was*/
+    private int[] samplePixel(int x, int y) {
+
+        ComplexNumber[][] lastResults = fractalSet.getLastResults();
+        ComplexNumber lastResult = lastResults[y][x];
+        ComplexNumber pixelPoint = fractalSet.pixelToComplexNumber(x, y);
+        double pixelSize = 1 / fractalSet.getZoom();
+        int[] samples = new int[grid * grid];
+
+        for (int cellY = 0; cellY < grid; cellY++) {
+            for (int cellX = 0; cellX < grid; cellX++) {
+
+                int cell = cellY * grid + cellX;
+                double offsetX = (cellX + jitter(x, y, 2 * cell)) / grid - 0.5;
+                double offsetY = (cellY + jitter(x, y, 2 * cell + 1)) / grid - 0.5;
+                ComplexNumber point = new ComplexNumber(pixelPoint.getReal() + offsetX * pixelSize, pixelPoint.getImaginary() - offsetY * pixelSize);
+                samples[cell] = iteratePoint(fractalSet, point, x, y);
+
+            }
+        }
+
+        lastResults[y][x] = lastResult;
+        return samples;
+
+    }
+
+    /**Works out the iterations of a point the same way the set works out the iterations of a pixel, storing its result at x, y*/
+    static int iteratePoint(FractalSet fractalSet, ComplexNumber point, int x, int y) {
+
+        if (fractalSet.getType() == FractalType.JULIA) {
+            return point.sqrOfMagnitude() > 4 ? 1 : fractalSet.numIterations(point, fractalSet.getC(), x, y);
+        }
+        if (fractalSet.getFormula() == null && point.sqrOfMagnitude() > 4) return 1;
+        if (fractalSet.getFormula() == null && AttractingCycle.isKnownInterior(point, fractalSet.getPower(), fractalSet.getzStart())) {
+            return fractalSet.getMaxIterations();
+        }
+        return fractalSet.numIterations(fractalSet.getzStart(), point, x, y);
+
+    }
+
+    /**Returns a number in [0, 1) that is fixed for each pixel and index, by mixing their bits*/
+    static double jitter(int x, int y, int index) {
+
+        long hash = ((long)x << 40) ^ ((long)y << 20) ^ index;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return (hash >>> 11) / (double)(1L << 53);
+
+    }
+
+    public int getEdgePixels() {
+        return edgePixels;
+    }
+
+}
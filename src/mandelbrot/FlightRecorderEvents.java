@@ -0,0 +1,112 @@
+package mandelbrot;
+
+/**
+ * Static class that creates and commits the Java Flight Recorder events of the program. The event classes
+ * are only ever touched from here, and only when the running JVM includes Flight Recorder, so the rest of
+ * the program works unchanged on older Java 8 runtimes that do not. Events are passed around as Objects
+ * for the same reason. When Flight Recorder is present but not recording, the events cost next to nothing.
+ */
+
+public class FlightRecorderEvents {
+
+    /**Whether the jdk.jfr API is present in this JVM*/
+    private static final boolean available = checkAvailable();
+
+    /**Looks for the base class of all Flight Recorder events*/
+    private static boolean checkAvailable() {
+
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+
+    }
+
+    /**Starts timing a pass of iteration, returning null if Flight Recorder is unavailable*/
+    public static Object beginRenderJob() {
+
+        if (!available) return null;
+        RenderJobEvent event = new RenderJobEvent();
+        event.begin();
+        return event;
+
+    }
+
+    /**Finishes timing a pass of iteration and records the properties of the fractal*/
+    public static void commitRenderJob(Object handle, FractalSet fractalSet, long iterations, long pixelsSkipped) {
+
+        if (handle == null) return;
+        RenderJobEvent event = (RenderJobEvent)handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.fractal = fractalSet.getType().toString();
+            event.width = fractalSet.getDimensions().width;
+            event.height = fractalSet.getDimensions().height;
+            event.chunkSize = fractalSet.getChunkSize();
+            event.maxIterations = fractalSet.getMaxIterations();
+            event.power = fractalSet.getPower();
+            event.zoom = fractalSet.getZoom();
+            event.centre = fractalSet.getCentre().toString();
+            event.iterations = iterations;
+            event.pixelsSkipped = pixelsSkipped;
+            event.commit();
+        }
+
+    }
+
+    /**Starts timing a tile of iteration, returning null if Flight Recorder is unavailable*/
+    public static Object beginTile() {
+
+        if (!available) return null;
+        RenderTileEvent event = new RenderTileEvent();
+        event.begin();
+        return event;
+
+    }
+
+    /**Finishes timing a tile of iteration*/
+    public static void commitTile(Object handle, FractalType type, int x, int y, int width, int height, long iterations) {
+
+        if (handle == null) return;
+        RenderTileEvent event = (RenderTileEvent)handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.fractal = type.toString();
+            event.x = x;
+            event.y = y;
+            event.width = width;
+            event.height = height;
+            event.iterations = iterations;
+            event.commit();
+        }
+
+    }
+
+    /**Starts timing a colouring pass, returning null if Flight Recorder is unavailable*/
+    public static Object beginColouring() {
+
+        if (!available) return null;
+        ColouringEvent event = new ColouringEvent();
+        event.begin();
+        return event;
+
+    }
+
+    /**Finishes timing a colouring pass*/
+    public static void commitColouring(Object handle, FractalType type, String mode, int pixels) {
+
+        if (handle == null) return;
+        ColouringEvent event = (ColouringEvent)handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.fractal = type.toString();
+            event.mode = mode;
+            event.pixels = pixels;
+            event.commit();
+        }
+
+    }
+
+}
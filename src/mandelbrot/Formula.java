@@ -0,0 +1,298 @@
+package mandelbrot;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * User defined iteration formula, such as z^2 + c for the Mandelbrot set, abs(z)^2 + c for the Burning Ship,
+ * conj(z)^2 + c for the Tricorn or z^3 + z + c. A formula is written in terms of z and c with the operators
+ * + - * / ^ (to a real exponent), brackets, complex constants such as 0.5 or 2i, and the functions abs() (of each
+ * component) and conj(). It is parsed into a tree of FormulaNodes, which is then written out as Java source for a
+ * FormulaKernel and compiled while the program is running, so the iteration loop is ordinary code on primitive
+ * doubles that the JIT optimises just like a handwritten kernel. If the program is running on a JRE without a Java
+ * compiler, or the generated kernel fails to compile or load, the tree is evaluated directly instead, which gives
+ * the same results more slowly.
+ */
+
+public class Formula {
+
+    /**Used to give every generated kernel a different class name*/
+    private static final AtomicInteger kernelCount = new AtomicInteger();
+
+    /**The formula as typed by the user*/
+    private String source;
+
+    /**Root of the syntax tree*/
+    private FormulaNode root;
+
+    /**The kernel that iterates the formula*/
+    private FormulaKernel kernel;
+
+    /**Whether the kernel was compiled rather than interpreted*/
+    private boolean compiled;
+
+    /**Position of the parser within the source*/
+    private int position;
+
+    /**Parses and compiles a formula, throwing an IllegalArgumentException if it is not valid*/
+    public Formula(String source) {
+
+        this.source = source;
+        this.position = 0;
+        this.root = parseExpression();
+        skipWhitespace();
+        if (position < source.length()) throw error("Unexpected '" + source.charAt(position) + "'");
+
+        try {
+            this.kernel = compile();
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        }
+        this.compiled = kernel != null;
+        if (kernel == null) this.kernel = interpret();
+
+    }
+
+    /**expression := term (('+' | '-') term)**/
+    private FormulaNode parseExpression() {
+
+        FormulaNode node = parseTerm();
+        while (true) {
+            if (accept('+')) node = new FormulaNode(FormulaNode.Operation.ADD, node, parseTerm(), 0, 0);
+            else if (accept('-')) node = new FormulaNode(FormulaNode.Operation.SUBTRACT, node, parseTerm(), 0, 0);
+            else return node;
+        }
+
+    }
+
+    /**term := unary (('*' | '/') unary)**/
+    private FormulaNode parseTerm() {
+
+        FormulaNode node = parseUnary();
+        while (true) {
+            if (accept('*')) node = new FormulaNode(FormulaNode.Operation.MULTIPLY, node, parseUnary(), 0, 0);
+            else if (accept('/')) node = new FormulaNode(FormulaNode.Operation.DIVIDE, node, parseUnary(), 0, 0);
+            else return node;
+        }
+
+    }
+
+    /**unary := '-' unary | primary ('^' real)?*/
+    private FormulaNode parseUnary() {
+
+        if (accept('-')) return new FormulaNode(FormulaNode.Operation.NEGATE, parseUnary(), null, 0, 0);
+        FormulaNode node = parsePrimary();
+        if (accept('^')) {
+            boolean negative = accept('-');
+            skipWhitespace();
+            if (position >= source.length() || !isNumberCharacter(source.charAt(position))) throw error("Expected a real exponent");
+            double exponent = parseNumber();
+            node = new FormulaNode(FormulaNode.Operation.POWER, node, null, negative ? -exponent : exponent, 0);
+        }
+        return node;
+
+    }
+
+    /**primary := number 'i'? | 'i' | 'z' | 'c' | ('abs' | 'conj') '(' expression ')' | '(' expression ')'*/
+    private FormulaNode parsePrimary() {
+
+        skipWhitespace();
+        if (position >= source.length()) throw error("Unexpected end of formula");
+        char next = source.charAt(position);
+
+        if (isNumberCharacter(next)) {
+            double value = parseNumber();
+            if (accept('i')) return new FormulaNode(FormulaNode.Operation.CONSTANT, null, null, 0, value);
+            return new FormulaNode(FormulaNode.Operation.CONSTANT, null, null, value, 0);
+        }
+        if (accept('(')) {
+            FormulaNode node = parseExpression();
+            expect(')');
+            return node;
+        }
+
+        int start = position;
+        while (position < source.length() && Character.isLetter(source.charAt(position))) position++;
+        String word = source.substring(start, position);
+        switch (word) {
+            case "z": return new FormulaNode(FormulaNode.Operation.Z, null, null, 0, 0);
+            case "c": return new FormulaNode(FormulaNode.Operation.C, null, null, 0, 0);
+            case "i": return new FormulaNode(FormulaNode.Operation.CONSTANT, null, null, 0, 1);
+            case "abs":
+            case "conj": {
+                expect('(');
+                FormulaNode argument = parseExpression();
+                expect(')');
+                return new FormulaNode(word.equals("abs") ? FormulaNode.Operation.ABS : FormulaNode.Operation.CONJUGATE, argument, null, 0, 0);
+            }
+            default:
+                position = start;
+                throw error(word.isEmpty() ? "Unexpected '" + next + "'" : "Unknown name '" + word + "'");
+        }
+
+    }
+
+    private double parseNumber() {
+
+        int start = position;
+        while (position < source.length() && isNumberCharacter(source.charAt(position))) position++;
+        try {
+            return Double.parseDouble(source.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid number");
+        }
+
+    }
+
+    private static boolean isNumberCharacter(char character) {
+
+        return Character.isDigit(character) || character == '.';
+
+    }
+
+    private boolean accept(char character) {
+
+        skipWhitespace();
+        if (position < source.length() && source.charAt(position) == character) {
+            position++;
+            return true;
+        }
+        return false;
+
+    }
+
+    private void expect(char character) {
+
+        if (!accept(character)) throw error("Expected '" + character + "'");
+
+    }
+
+    private void skipWhitespace() {
+
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) position++;
+
+    }
+
+    private IllegalArgumentException error(String message) {
+
+        return new IllegalArgumentException(message + " at position " + position + " of \"" + source + "\"");
+
+    }
+
+    /**Writes the formula out as a FormulaKernel class and compiles it, returning null if there is no compiler*/
+    private FormulaKernel compile() {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) return null;
+
+        String className = "GeneratedFormulaKernel" + kernelCount.incrementAndGet();
+        StringBuilder body = new StringBuilder();
+        String[] next = root.emit(body, new int[1]);
+        String code = "package mandelbrot;\n"
+                + "public final class " + className + " implements FormulaKernel {\n"
+                + "    public int iterate(double zr, double zi, double cr, double ci, int maxIterations, double[] result) {\n"
+                + "        int i;\n"
+                + "        for (i = 0; i < maxIterations && zr * zr + zi * zi <= 4; i++) {\n"
+                + body
+                + "            double nextr = " + next[0] + ";\n"
+                + "            zi = " + next[1] + ";\n"
+                + "            zr = nextr;\n"
+                + "        }\n"
+                + "        result[0] = zr;\n"
+                + "        result[1] = zi;\n"
+                + "        return i;\n"
+                + "    }\n"
+                + "}\n";
+
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(compiler.getStandardFileManager(null, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        classFiles.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///mandelbrot/" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+
+        String classPath = System.getProperty("java.class.path");
+        try {
+            classPath = new File(Formula.class.getProtectionDomain().getCodeSource().getLocation().toURI()) + File.pathSeparator + classPath;
+        } catch (Exception ignored) {
+        }
+        Boolean success = compiler.getTask(null, fileManager, null, Arrays.asList("-classpath", classPath, "-nowarn"),
+                null, Collections.singletonList(sourceFile)).call();
+        if (!success) throw new IllegalStateException("Generated kernel failed to compile:\n" + code);
+
+        ClassLoader loader = new ClassLoader(Formula.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classFiles.get(name);
+                if (bytes == null) throw new ClassNotFoundException(name);
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            }
+        };
+        try {
+            return (FormulaKernel)loader.loadClass("mandelbrot." + className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**Returns a kernel that evaluates the syntax tree on each iteration*/
+    private FormulaKernel interpret() {
+
+        int nodes = root.assignIndices(0);
+        return (zr, zi, cr, ci, maxIterations, result) -> {
+            double[] values = new double[2 * nodes];
+            int i;
+            for (i = 0; i < maxIterations && zr * zr + zi * zi <= 4; i++) {
+                root.evaluate(values, zr, zi, cr, ci);
+                zr = values[2 * root.index];
+                zi = values[2 * root.index + 1];
+            }
+            result[0] = zr;
+            result[1] = zi;
+            return i;
+        };
+
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public FormulaKernel getKernel() {
+        return kernel;
+    }
+
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+}
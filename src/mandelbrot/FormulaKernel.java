@@ -0,0 +1,15 @@
+package mandelbrot;
+
+/**
+ * Interface that dictates the method a compiled Formula provides in place of the built in z^power + c.
+ * It follows the same contract as numIterations: the formula is applied to z until z leaves the circle of
+ * radius two or maxIterations is reached, and the number of iterations taken is returned. The final value
+ * of z is written into the first two elements of result so that iteration can be continued later.
+ */
+
+public interface FormulaKernel {
+
+    /**Iterates from z with the constant c, returning the number of iterations taken to bailout*/
+    int iterate(double zReal, double zImaginary, double cReal, double cImaginary, int maxIterations, double[] result);
+
+}
@@ -0,0 +1,181 @@
+package mandelbrot;
+
+/**
+ * Node of the syntax tree of a Formula. Each node is a complex valued operation on its children, or a leaf
+ * holding z, c or a constant. The tree can be turned into straight line Java source, where every complex value
+ * is held as a pair of doubles, or evaluated directly when no compiler is available. Both follow the arithmetic
+ * of ComplexNumber exactly, so a formula such as z^2 + c gives the same results as the built in iteration.
+ */
+
+class FormulaNode {
+
+    /**Operations that a node can represent*/
+    enum Operation {Z, C, CONSTANT, ADD, SUBTRACT, MULTIPLY, DIVIDE, NEGATE, POWER, ABS, CONJUGATE}
+
+    final Operation operation;
+    final FormulaNode left;
+    final FormulaNode right;
+
+    /**Value of a constant, or the exponent of a power in real*/
+    final double real;
+    final double imaginary;
+
+    /**Position of this node's value in the scratch array used when evaluating*/
+    int index;
+
+    FormulaNode(Operation operation, FormulaNode left, FormulaNode right, double real, double imaginary) {
+
+        this.operation = operation;
+        this.left = left;
+        this.right = right;
+        this.real = real;
+        this.imaginary = imaginary;
+
+    }
+
+    /**Numbers the nodes in the order they are evaluated, returning the total*/
+    int assignIndices(int next) {
+
+        if (left != null) next = left.assignIndices(next);
+        if (right != null) next = right.assignIndices(next);
+        index = next;
+        return next + 1;
+
+    }
+
+    /**Appends the statements that compute this node and returns the names of its real and imaginary parts*/
+    String[] emit(StringBuilder code, int[] temps) {
+
+        switch (operation) {
+            case Z: return new String[] {"zr", "zi"};
+            case C: return new String[] {"cr", "ci"};
+            case CONSTANT: return new String[] {literal(real), literal(imaginary)};
+        }
+
+        String[] a = left.emit(code, temps);
+        String[] b = right != null ? right.emit(code, temps) : null;
+        String r = "t" + temps[0] + "r";
+        String i = "t" + temps[0] + "i";
+        temps[0]++;
+
+        switch (operation) {
+            case ADD:
+                declare(code, r, a[0] + " + " + b[0], i, a[1] + " + " + b[1]);
+                break;
+            case SUBTRACT:
+                declare(code, r, a[0] + " - " + b[0], i, a[1] + " - " + b[1]);
+                break;
+            case MULTIPLY:
+                declare(code, r, a[0] + " * " + b[0] + " - " + a[1] + " * " + b[1], i, a[0] + " * " + b[1] + " + " + b[0] + " * " + a[1]);
+                break;
+            case DIVIDE:
+                code.append("            double ").append(r).append("d = ").append(b[0]).append(" * ").append(b[0]).append(" + ").append(b[1]).append(" * ").append(b[1]).append(";\n");
+                declare(code, r, "(" + a[0] + " * " + b[0] + " + " + a[1] + " * " + b[1] + ") / " + r + "d",
+                        i, "(" + a[1] + " * " + b[0] + " - " + a[0] + " * " + b[1] + ") / " + r + "d");
+                break;
+            case NEGATE:
+                declare(code, r, "-" + a[0], i, "-" + a[1]);
+                break;
+            case ABS:
+                declare(code, r, "Math.abs(" + a[0] + ")", i, "Math.abs(" + a[1] + ")");
+                break;
+            case CONJUGATE:
+                declare(code, r, a[0], i, "-" + a[1]);
+                break;
+            case POWER:
+                emitPower(code, a, r, i);
+                break;
+        }
+        return new String[] {r, i};
+
+    }
+
+    /**Raises to an integer power by repeated multiplication, or to a decimal power with De Moivre's theorem*/
+    private void emitPower(StringBuilder code, String[] a, String r, String i) {
+
+        int exponent = (int)Math.abs(real);
+        if (real % 1 == 0 && exponent >= 1) {
+            String pr = a[0];
+            String pi = a[1];
+            for (int n = 1; n < exponent; n++) {
+                declare(code, r + n, pr + " * " + a[0] + " - " + pi + " * " + a[1], i + n, pr + " * " + a[1] + " + " + a[0] + " * " + pi);
+                pr = r + n;
+                pi = i + n;
+            }
+            if (real > 0) declare(code, r, pr, i, pi);
+            else {
+                code.append("            double ").append(r).append("d = ").append(pr).append(" * ").append(pr).append(" + ").append(pi).append(" * ").append(pi).append(";\n");
+                declare(code, r, pr + " / " + r + "d", i, "-" + pi + " / " + r + "d");
+            }
+        }
+        else if (real == 0) declare(code, r, "1.0", i, "0.0");
+        else {
+            code.append("            double ").append(r).append("m = Math.pow(Math.sqrt(").append(a[1]).append(" * ").append(a[1]).append(" + ").append(a[0]).append(" * ").append(a[0]).append("), ").append(literal(real)).append(");\n");
+            code.append("            double ").append(r).append("a = ").append(literal(real)).append(" * Math.atan2(").append(a[1]).append(", ").append(a[0]).append(");\n");
+            declare(code, r, r + "m * Math.cos(" + r + "a)", i, r + "m * Math.sin(" + r + "a)");
+        }
+
+    }
+
+    private static void declare(StringBuilder code, String r, String realExpression, String i, String imaginaryExpression) {
+
+        code.append("            double ").append(r).append(" = ").append(realExpression).append(";\n");
+        code.append("            double ").append(i).append(" = ").append(imaginaryExpression).append(";\n");
+
+    }
+
+    private static String literal(double value) {
+
+        return "(" + Double.toString(value) + ")";
+
+    }
+
+    /**Evaluates this node into values[2 * index] and values[2 * index + 1], after evaluating its children*/
+    void evaluate(double[] values, double zr, double zi, double cr, double ci) {
+
+        if (left != null) left.evaluate(values, zr, zi, cr, ci);
+        if (right != null) right.evaluate(values, zr, zi, cr, ci);
+        double ar = left != null ? values[2 * left.index] : 0;
+        double ai = left != null ? values[2 * left.index + 1] : 0;
+        double br = right != null ? values[2 * right.index] : 0;
+        double bi = right != null ? values[2 * right.index + 1] : 0;
+        double r;
+        double i;
+
+        switch (operation) {
+            case Z: r = zr; i = zi; break;
+            case C: r = cr; i = ci; break;
+            case CONSTANT: r = real; i = imaginary; break;
+            case ADD: r = ar + br; i = ai + bi; break;
+            case SUBTRACT: r = ar - br; i = ai - bi; break;
+            case MULTIPLY: r = ar * br - ai * bi; i = ar * bi + br * ai; break;
+            case DIVIDE: {
+                double d = br * br + bi * bi;
+                r = (ar * br + ai * bi) / d;
+                i = (ai * br - ar * bi) / d;
+                break;
+            }
+            case NEGATE: r = -ar; i = -ai; break;
+            case ABS: r = Math.abs(ar); i = Math.abs(ai); break;
+            case CONJUGATE: r = ar; i = -ai; break;
+            default: {
+                ComplexNumber power;
+                if (real % 1 == 0 && real != 0) {
+                    power = new ComplexNumber(ar, ai).pow((int)Math.abs(real));
+                    if (real < 0) {
+                        double d = power.sqrOfMagnitude();
+                        power = new ComplexNumber(power.getReal() / d, -power.getImaginary() / d);
+                    }
+                }
+                else if (real == 0) power = new ComplexNumber(1, 0);
+                else power = new ComplexNumber(ar, ai).pow(real);
+                r = power.getReal();
+                i = power.getImaginary();
+            }
+        }
+        values[2 * index] = r;
+        values[2 * index + 1] = i;
+
+    }
+
+}
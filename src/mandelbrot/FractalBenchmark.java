@@ -0,0 +1,247 @@
+package mandelbrot;
+
+import java.awt.*;
+
+/**
+ * Stand-alone benchmark suite that times the hot paths of the program on a fixed set of canonical views,
+ * so that performance changes can be measured rather than guessed at. Each benchmark is warmed up before
+ * it is measured, to give the JIT compiler a chance to compile the code being timed, and then the best of
+ * several measured runs is reported along with the throughput in pixels and iterations per second, counting only
+ * the iterations actually executed rather than those credited to pixels filled by symmetry or other shortcuts.
+ * The canonical views are the full Mandelbrot set, seahorse valley and a deep minibrot near the tip of the
+ * needle, each at a size and max iterations that make them representative of normal use.
+ * Run with: java mandelbrot.FractalBenchmark
+ */
+
+public class FractalBenchmark {
+
+    /**Size of the image rendered by every benchmark*/
+    static final int WIDTH = 400;
+    static final int HEIGHT = 300;
+
+    /**Number of untimed runs before measuring and number of measured runs*/
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+    /**Canonical views that benchmarks are run against*/
+    static final String[] VIEW_NAMES = {"Full set", "Seahorse valley", "Deep minibrot"};
+    static final ComplexNumber[] VIEW_CENTRES = {new ComplexNumber(-0.5, 0), new ComplexNumber(-0.745, 0.11), new ComplexNumber(-1.9855403716541305, 0)};
+    static final double[] VIEW_ZOOMS = {100, 5000, 3e9};
+    static final int[] VIEW_MAX_ITERATIONS = {256, 1000, 5000};
+
+    /**Runs every benchmark and prints the results*/
+    public static void main(String[] args) {
+
+        System.out.println(String.format("%-48s %12s %16s %16s %16s", "Benchmark", "ms/op", "pixels/s", "iterations/s", "pixels skipped"));
+
+        benchmarkKernels();
+        benchmarkFormulas();
+        benchmarkPrecision();
+        benchmarkDistanceEstimation();
+        benchmarkComplexNumber();
+        benchmarkColouring();
+        benchmarkTracking();
+        benchmarkBoxCounting();
+
+    }
+
+    /**Creates a MandelbrotSet looking at one of the canonical views, kept in double precision unless a benchmark allows otherwise*/
+    static MandelbrotSet createView(int view, double power) {
+
+        MandelbrotSet mandelbrotSet = new MandelbrotSet();
+        mandelbrotSet.setSinglePrecisionAllowed(false);
+        mandelbrotSet.setDimensions(new Dimension(WIDTH, HEIGHT));
+        mandelbrotSet.setMaxIterations(VIEW_MAX_ITERATIONS[view]);
+        mandelbrotSet.setPower(power);
+        mandelbrotSet.setChunkSize(1);
+        mandelbrotSet.setCentre(VIEW_CENTRES[view]);
+        mandelbrotSet.setZoom(VIEW_ZOOMS[view]);
+        return mandelbrotSet;
+
+    }
+
+    /**Times full iteration of each view at power 2, an integer power and a fractional power*/
+    private static void benchmarkKernels() {
+
+        double[] powers = {2, 3, 2.5};
+        for (int view = 0; view < VIEW_NAMES.length; view++) {
+            for (double power: powers) {
+
+                MandelbrotSet mandelbrotSet = createView(view, power);
+                long time = time(() -> mandelbrotSet.iterate(false));
+                report("numIterations " + VIEW_NAMES[view] + " (power " + power + ")", time, WIDTH * HEIGHT, executedIterations(mandelbrotSet), mandelbrotSet.getMetrics().getLastPixelsSkipped());
+
+            }
+        }
+
+    }
+
+    /**Times runtime compiled formula kernels over the seahorse valley, starting with the built in equation*/
+    private static void benchmarkFormulas() {
+
+        String[] formulas = {"z^2 + c", "z^3 + c", "abs(z)^2 + c", "conj(z)^2 + c", "z^3 + z + c"};
+        for (String source: formulas) {
+
+            MandelbrotSet mandelbrotSet = createView(1, 2);
+            mandelbrotSet.setFormula(new Formula(source));
+            long time = time(() -> mandelbrotSet.iterate(false));
+            report("formula " + source, time, WIDTH * HEIGHT, executedIterations(mandelbrotSet), mandelbrotSet.getMetrics().getLastPixelsSkipped());
+
+        }
+
+    }
+
+    /**Times the full set view in double precision and in the single precision kernel chosen at shallow zooms*/
+    private static void benchmarkPrecision() {
+
+        for (boolean singlePrecisionAllowed: new boolean[] {false, true}) {
+
+            MandelbrotSet mandelbrotSet = createView(0, 2);
+            mandelbrotSet.setSinglePrecisionAllowed(singlePrecisionAllowed);
+            long time = time(() -> mandelbrotSet.iterate(false));
+            report("numIterations Full set (" + (mandelbrotSet.isSinglePrecision() ? "float" : "double") + ")", time, WIDTH * HEIGHT, executedIterations(mandelbrotSet), mandelbrotSet.getMetrics().getLastPixelsSkipped());
+
+        }
+
+    }
+
+    /**Times the distance estimate kernel over each view iterating every pixel, then filling exterior discs from its estimates*/
+    private static void benchmarkDistanceEstimation() {
+
+        for (int view = 0; view < VIEW_NAMES.length; view++) {
+            for (boolean fillingDiscs: new boolean[] {false, true}) {
+
+                MandelbrotSet mandelbrotSet = createView(view, 2);
+                DistanceEstimateSampler[] sampler = new DistanceEstimateSampler[1];
+                long time = time(() -> {
+                    sampler[0] = new DistanceEstimateSampler(mandelbrotSet);
+                    sampler[0].setFillingDiscs(fillingDiscs);
+                    sampler[0].sample(false);
+                });
+                report("distanceEstimation " + VIEW_NAMES[view] + " (discs " + (fillingDiscs ? "on" : "off") + ")", time,
+                        WIDTH * HEIGHT, sampler[0].getIterationsExecuted(), sampler[0].getPixelsSkipped());
+
+            }
+        }
+
+    }
+
+    /**Times the basic complex number operations that make up the iteration loop*/
+    private static void benchmarkComplexNumber() {
+
+        final int operations = 1_000_000;
+        ComplexNumber c = new ComplexNumber(-0.1, 0.65);
+
+        report("ComplexNumber multiply + add", time(() -> {
+            ComplexNumber z = new ComplexNumber();
+            for (int i = 0; i < operations; i++) {
+                z = z.multiply(z).add(c);
+                if (z.sqrOfMagnitude() > 4) z = new ComplexNumber();
+            }
+        }), 0, operations);
+
+        report("ComplexNumber pow(int 3) + add", time(() -> {
+            ComplexNumber z = new ComplexNumber();
+            for (int i = 0; i < operations; i++) {
+                z = z.pow(3).add(c);
+                if (z.sqrOfMagnitude() > 4) z = new ComplexNumber();
+            }
+        }), 0, operations);
+
+        report("ComplexNumber pow(double 2.5) + add", time(() -> {
+            ComplexNumber z = new ComplexNumber();
+            for (int i = 0; i < operations; i++) {
+                z = z.pow(2.5).add(c);
+                if (z.sqrOfMagnitude() > 4) z = new ComplexNumber();
+            }
+        }), 0, operations);
+
+    }
+
+    /**Times colouring of each view with linear, palette and histogram colouring*/
+    private static void benchmarkColouring() {
+
+        String[] modes = {"linear", "palette", "histogram"};
+        for (int view = 0; view < VIEW_NAMES.length; view++) {
+
+            MandelbrotSet mandelbrotSet = createView(view, 2);
+            mandelbrotSet.iterate(false);
+
+            for (String mode: modes) {
+
+                DrawingConditions conditions = new DrawingConditions();
+                conditions.readyToColourPalette = mode.equals("palette");
+                conditions.readyToHistogramColour = mode.equals("histogram");
+                ArgandDiagram argandDiagram = new ArgandDiagram(mandelbrotSet, conditions, new FractalColours(Color.RED, Color.BLUE, Color.BLACK), mandelbrotSet.getDimensions());
+
+                long time = time(argandDiagram::renderImage);
+                report("createImage " + VIEW_NAMES[view] + " (" + mode + ")", time, WIDTH * HEIGHT, 0);
+
+            }
+
+        }
+
+    }
+
+    /**Times the filling and projection of the orbit for an interior point that never escapes*/
+    private static void benchmarkTracking() {
+
+        MandelbrotSet mandelbrotSet = createView(0, 2);
+        mandelbrotSet.setMaxIterations(1_000_000);
+        ComplexNumber point = new ComplexNumber(-0.1, 0.1);
+        OrbitBuffer orbit = new OrbitBuffer();
+
+        report("fillOrbit (1000000 iterations)", time(() -> mandelbrotSet.fillOrbit(point, orbit)), 0, mandelbrotSet.getMaxIterations());
+        report("OrbitBuffer.toPath (1000000 points)", time(() -> orbit.toPath(mandelbrotSet)), 0, orbit.getLength());
+
+    }
+
+    /**Times a full box counting pass, from 256 pixel boxes down to 2 pixel boxes, over the seahorse valley*/
+    private static void benchmarkBoxCounting() {
+
+        MandelbrotSet mandelbrotSet = createView(1, 2);
+        mandelbrotSet.iterate(false);
+        int[] sides = {255, 127, 63, 31, 15, 7, 3, 1};
+
+        long time = time(() -> new BoxCounter(mandelbrotSet.getIterations(), mandelbrotSet.getMaxIterations(), 1).countBoxes(sides));
+        report("BoxCounter Seahorse valley (all box sizes)", time, WIDTH * HEIGHT, 0);
+
+    }
+
+    /**Warms up then returns the fastest time in nanoseconds of several runs of the benchmark*/
+    private static long time(Runnable benchmark) {
+
+        for (int i = 0; i < WARMUP_RUNS; i++) benchmark.run();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            benchmark.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+
+    }
+
+    /**Prints a line of results, leaving throughputs blank when the benchmark does not deal in them*/
+    private static void report(String name, long nanoseconds, long pixels, long iterations) {
+        report(name, nanoseconds, pixels, iterations, -1);
+    }
+
+    /**Prints a line of results along with the pixels filled without iterating, or a blank if that was not counted*/
+    private static void report(String name, long nanoseconds, long pixels, long iterations, long pixelsSkipped) {
+
+        double seconds = nanoseconds / 1e9;
+        String pixelRate = pixels > 0 ? String.format("%.3e", pixels / seconds) : "-";
+        String iterationRate = iterations > 0 ? String.format("%.3e", iterations / seconds) : "-";
+        String skipped = pixelsSkipped >= 0 ? Long.toString(pixelsSkipped) : "-";
+        System.out.println(String.format("%-48s %12.3f %16s %16s %16s", name, nanoseconds / 1e6, pixelRate, iterationRate, skipped));
+
+    }
+
+    /**Returns the iterations executed by the last pass over a fractal, which leaves out pixels that were filled in without iterating*/
+    static long executedIterations(FractalSet fractalSet) {
+        return fractalSet.getMetrics().getLastIterations();
+    }
+
+}
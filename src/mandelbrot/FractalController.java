@@ -46,13 +46,16 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     @Override
     public void mouseClicked(MouseEvent me) {
 
+        mandelbrotFrame.stopIdleRefinement();
+        record(me);
         if (me.getButton() == MouseEvent.BUTTON1) {
             mandelbrotFrame.addActionToStack();
             ComplexNumber newCentre = fractalSet.pixelToComplexNumber(me.getX(), me.getY());
             fractalSet.setCentre(newCentre);
             if (fractalSet.getType() == FractalType.MANDELBROT) mandelbrotFrame.mandelbrotSet.juliaSet.setC(newCentre);
 
-            mandelbrotFrame.iterateAndDraw();
+            mandelbrotFrame.showPreviews();
+            mandelbrotFrame.interactiveIterateAndDraw();
         }
         else if (me.getButton() == MouseEvent.BUTTON2) {
 
@@ -72,9 +75,11 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
 
     }
 
+    /**Shows the real Julia set again once the cursor leaves the Mandelbrot set*/
     @Override
     public void mouseExited(MouseEvent me) {
 
+        if (fractalSet.getType() == FractalType.MANDELBROT) mandelbrotFrame.stopJuliaHover();
 
     }
 
@@ -82,6 +87,9 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     @Override
     public void mousePressed(MouseEvent me) {
 
+        mandelbrotFrame.stopIdleRefinement();
+        mandelbrotFrame.stopJuliaHover();
+        record(me);
         lastPos = new Point(me.getX(), me.getY());
 
     }
@@ -90,10 +98,15 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     @Override
     public void mouseReleased(MouseEvent me) {
 
+        mandelbrotFrame.stopIdleRefinement();
+        record(me);
         if (SwingUtilities.isLeftMouseButton(me) && dragging) {
             dragging = false;
             argandDiagram.setImgLocation(new Point());
-            mandelbrotFrame.iterateAndDraw();
+            if (!mandelbrotFrame.fractalContainer.conditions.readyToUseDynamicResolution) {
+                mandelbrotFrame.showPreviews();
+                mandelbrotFrame.iterateAndDraw();
+            }
         }
 
     }
@@ -102,15 +115,25 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     @Override
     public void mouseWheelMoved(MouseWheelEvent mwe) {
 
+        mandelbrotFrame.stopIdleRefinement();
+        mandelbrotFrame.stopJuliaHover();
+        record(mwe);
         mandelbrotFrame.addActionToStack();
+        zoom(fractalSet, mwe.getWheelRotation());
+        mandelbrotFrame.showPreviews();
+        mandelbrotFrame.interactiveIterateAndDraw();
+
+    }
 
-        if (mwe.getWheelRotation() < 0) {
-            fractalSet.setZoom(fractalSet.getZoom() * (2 * -mwe.getWheelRotation()));
+    /**Changes the zoom of the FractalSet by a common ratio based on how far the mouse wheel has turned*/
+    static void zoom(FractalSet set, int wheelRotation) {
+
+        if (wheelRotation < 0) {
+            set.setZoom(set.getZoom() * (2 * -wheelRotation));
         }
         else {
-            fractalSet.setZoom(fractalSet.getZoom() / (2 * mwe.getWheelRotation()));
+            set.setZoom(set.getZoom() / (2 * wheelRotation));
         }
-        mandelbrotFrame.iterateAndDraw();
 
     }
 
@@ -118,6 +141,8 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     @Override
     public void mouseDragged(MouseEvent mme) {
 
+        mandelbrotFrame.stopIdleRefinement();
+        record(mme);
         if (SwingUtilities.isLeftMouseButton(mme)) {
 
             if (!dragging) {
@@ -126,12 +151,17 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
             }
 
             ComplexNumber newCentre;
-            argandDiagram.translateImgLocation(new Point(mme.getX() - lastPos.x, mme.getY() - lastPos.y));
             newCentre = calculateNewCentre(fractalSet, mme.getX(), mme.getY(), lastPos);
             fractalSet.setCentre(newCentre);
             if (fractalSet.getType() == FractalType.MANDELBROT) mandelbrotFrame.mandelbrotSet.juliaSet.setC(newCentre);
 
-            mandelbrotFrame.draw();
+            if (mandelbrotFrame.fractalContainer.conditions.readyToUseDynamicResolution) {
+                mandelbrotFrame.interactiveIterateAndDraw();
+            }
+            else {
+                argandDiagram.translateImgLocation(new Point(mme.getX() - lastPos.x, mme.getY() - lastPos.y));
+                mandelbrotFrame.draw();
+            }
             lastPos = new Point(mme.getX(), mme.getY());
 
         }
@@ -145,7 +175,7 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
     }
 
     /**Calculates the new centre of the FractalSet by considering how many pixels the image has moved by*/
-    private ComplexNumber calculateNewCentre(FractalSet set, int newX, int newY, Point lastPos) {
+    static ComplexNumber calculateNewCentre(FractalSet set, int newX, int newY, Point lastPos) {
 
         ComplexNumber newPos = set.pixelToComplexNumber(newX, newY);
         ComplexNumber diff = newPos.subtract(set.pixelToComplexNumber(lastPos.x, lastPos.y));
@@ -153,10 +183,20 @@ public class FractalController implements MouseListener, MouseWheelListener, Mou
 
     }
 
+    /**Passes the event on to the InteractionRecorder if a recording is in progress*/
+    private void record(MouseEvent me) {
+
+        if (mandelbrotFrame.interactionRecorder != null) mandelbrotFrame.interactionRecorder.record(fractalSet.getType(), me);
+
+    }
+
+    /**Remembers the point under the cursor for the cursor tile order, and previews its Julia set while it hovers over the Mandelbrot set*/
     @Override
     public void mouseMoved(MouseEvent mme) {
 
-
+        mandelbrotFrame.stopIdleRefinement();
+        fractalSet.setTileFocus(mme.getPoint());
+        if (fractalSet.getType() == FractalType.MANDELBROT) mandelbrotFrame.hoverJulia(fractalSet.pixelToComplexNumber(mme.getX(), mme.getY()));
 
     }
 
@@ -1,6 +1,7 @@
 package mandelbrot;
 
 import java.awt.*;
+import java.util.function.Consumer;
 
 /**
  * Interface that dictates the methods required for an object to act as a FractalSet.
@@ -32,8 +33,8 @@ public interface FractalSet {
     /**Alter iterations based on the new bailout*/
     ComplexNumber stepIterationsUp(ComplexNumber zCurrent, int x, int y, int steps);
 
-    /**Fill queue with values after each iteration of a given point*/
-    GenericQueue<ComplexNumber> fillTrackingQueue(ComplexNumber point);
+    /**Fill orbit buffer with values after each iteration of a given point*/
+    void fillOrbit(ComplexNumber point, OrbitBuffer orbit);
 
     FractalType getType();
 
@@ -60,6 +61,44 @@ public interface FractalSet {
 
     void setRefined(boolean[][] refined);
 
+    boolean isRecordingCosts();
+
+    /**Turns on or off the recording of the iterations and nanoseconds spent on each pixel*/
+    void setRecordingCosts(boolean recordingCosts);
+
+    int[][] getIterationCosts();
+
+    int[][] getTimeCosts();
+
+    /**Side of the grid of samples taken in each pixel on an edge, or 0 when edges are not anti-aliased*/
+    int getSupersampling();
+
+    void setSupersampling(int supersampling);
+
+    /**Extra samples taken in each edge pixel during the last full resolution pass, null for pixels with none*/
+    int[][][] getSubSamples();
+
+    /**Metrics that the work done on this fractal is recorded in, which are only registered over JMX for the fractals onscreen*/
+    RenderMetrics getMetrics();
+
+    void setMetrics(RenderMetrics metrics);
+
+    /**Order that the tiles of the image are iterated in*/
+    TileOrder getTileOrder();
+
+    void setTileOrder(TileOrder tileOrder);
+
+    /**Length of the sides of the square tiles used by every order but rows, usually the tile size of the performance profile*/
+    int getTileSize();
+
+    void setTileSize(int tileSize);
+
+    /**Pixel that the cursor order spirals out from, usually the last one the cursor was over*/
+    void setTileFocus(Point tileFocus);
+
+    /**Sets what is given the bounds of each tile once it has been iterated, or null for nothing*/
+    void setTilePublisher(Consumer<Rectangle> tilePublisher);
+
     int getMaxIterations();
 
     void setMaxIterations(int maxIterations);
@@ -92,4 +131,9 @@ public interface FractalSet {
 
     void setC(ComplexNumber c);
 
+    /**User defined formula used in place of z^power + c, or null for the built in iteration*/
+    Formula getFormula();
+
+    void setFormula(Formula formula);
+
 }
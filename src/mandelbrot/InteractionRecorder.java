@@ -0,0 +1,85 @@
+package mandelbrot;
+
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * Object that records the mouse events handled by the FractalControllers, along with the time at which
+ * each one arrived, so that a session of exploring can be replayed later by the InteractionReplay harness.
+ * The colouring and successive refinement settings, and the starting properties and pane size of both fractals,
+ * are stored at the top of the recording so that the replay begins from exactly the same image and renders each
+ * frame the same way. Recordings are saved as plain text with one line
+ * per event, which keeps them easy to inspect and to compare between releases.
+ */
+
+public class InteractionRecorder {
+
+    /**First line of every recording, used to check that a file is a recording*/
+    static final String HEADER = "# mandelbrot-viewer interaction recording";
+
+    /**Time in nanoseconds at which recording started*/
+    private long startTime;
+
+    /**Line describing the colouring and successive refinement settings*/
+    private String settingsLine;
+
+    /**Lines describing the starting state of each fractal*/
+    private ArrayList<String> setLines;
+
+    /**Lines describing each event in the order that they arrived*/
+    private ArrayList<String> eventLines;
+
+    /**Starts a recording from the current state of the fractals and the settings they are drawn with*/
+    public InteractionRecorder(MandelbrotSet mandelbrotSet, DrawingConditions conditions, FractalColours colours, int successiveRefinementOption) {
+
+        this.startTime = System.nanoTime();
+        this.settingsLine = "settings," + conditions.readyToColourPalette + "," + conditions.readyToHistogramColour + ","
+                + colours.getOuter().getRGB() + "," + colours.getEdge().getRGB() + "," + colours.getInner().getRGB() + ","
+                + successiveRefinementOption;
+        this.setLines = new ArrayList<>();
+        this.eventLines = new ArrayList<>();
+        setLines.add(describeSet(mandelbrotSet, conditions.drawMandelbrot));
+        setLines.add(describeSet(mandelbrotSet.juliaSet, conditions.drawJulia));
+
+    }
+
+    /**Stores the properties of a fractal as a line of the recording*/
+    private String describeSet(FractalSet fractalSet, boolean drawn) {
+
+        return "set," + fractalSet.getType() + "," + drawn + "," + fractalSet.getDimensions().width + "," + fractalSet.getDimensions().height + ","
+                + fractalSet.getMaxIterations() + "," + fractalSet.getPower() + "," + fractalSet.getZoom() + ","
+                + fractalSet.getCentre() + "," + fractalSet.getzStart() + "," + fractalSet.getC() + "," + fractalSet.getChunkSize();
+
+    }
+
+    /**Adds a mouse event that happened on the pane of the given fractal to the recording*/
+    public synchronized void record(FractalType pane, MouseEvent me) {
+
+        int wheelRotation = me instanceof MouseWheelEvent ? ((MouseWheelEvent)me).getWheelRotation() : 0;
+        eventLines.add("event," + (System.nanoTime() - startTime) + "," + pane + "," + me.getID() + "," + me.getX() + "," + me.getY() + ","
+                + me.getButton() + "," + me.getModifiersEx() + "," + wheelRotation);
+
+    }
+
+    /**Writes the recording to a text file*/
+    public synchronized void writeToFile(File destination) throws FileNotFoundException {
+
+        try (PrintWriter writer = new PrintWriter(destination)) {
+            writer.println(HEADER);
+            writer.println(settingsLine);
+            for (String line: setLines) writer.println(line);
+            for (String line: eventLines) writer.println(line);
+        }
+
+    }
+
+    /**Returns the number of events recorded so far*/
+    public synchronized int getEventCount() {
+        return eventLines.size();
+    }
+
+}
@@ -0,0 +1,296 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Headless harness that replays a recording made by the InteractionRecorder against the real iteration and
+ * drawing code, to measure how responsive the program feels rather than how fast any one method is. Events
+ * are fed in at the same times as they were recorded and each one changes the fractals exactly as the
+ * FractalController would. Whenever an event leads to a new frame, the time from the event arriving to the
+ * frame being painted is recorded. Because rendering happens on a single thread, as it does on the event
+ * dispatch thread, a slow frame delays the events queued up behind it and this shows up in their latency.
+ * The display refreshes that pass while a frame is being rendered are counted as dropped frames. Frames are
+ * coloured and successively refined with the settings stored in the recording, in which case the latency is the
+ * time to the first, coarsest image and every pass counts towards the dropped frames. Recordings made before these
+ * settings were stored are replayed with palette colouring at chunk size 1.
+ * Run with: java mandelbrot.InteractionReplay recording.interactions
+ */
+
+public class InteractionReplay {
+
+    /**Time between refreshes of a 60Hz display in nanoseconds*/
+    static final double FRAME_INTERVAL = 1e9 / 60;
+
+    /**Fractals and diagrams being driven by the replay*/
+    private MandelbrotSet mandelbrotSet;
+    private DrawingConditions conditions;
+    private ArgandDiagram[] diagrams;
+
+    /**Off-screen images that the diagrams are painted onto in place of the screen*/
+    private BufferedImage[] screens;
+
+    /**Chunk size that successive refinement starts at, or 1 for none, and the chosen chunk size it stops at*/
+    private int successiveRefinementOption = 1;
+    private int chunkSize = 1;
+
+    /**Time at which the first image of the last frame was painted*/
+    private long firstPainted;
+
+    /**Recorded events in the order that they arrived*/
+    private ArrayList<String[]> events;
+
+    /**Drag state of each pane, indexed by FractalType*/
+    private boolean[] dragging;
+    private Point[] lastPos;
+
+    /**Latency of every frame in nanoseconds*/
+    private ArrayList<Long> latencies;
+
+    /**Number of display refreshes missed while frames were rendering*/
+    private long droppedFrames;
+
+    /**Loads a recording and sets the fractals up as they were when recording started*/
+    public InteractionReplay(File recording) throws IOException {
+
+        this.conditions = new DrawingConditions();
+        this.conditions.readyToColourPalette = true;
+        this.diagrams = new ArgandDiagram[FractalType.values().length];
+        this.screens = new BufferedImage[FractalType.values().length];
+        this.events = new ArrayList<>();
+        this.dragging = new boolean[FractalType.values().length];
+        this.lastPos = new Point[FractalType.values().length];
+        this.latencies = new ArrayList<>();
+
+        this.mandelbrotSet = new MandelbrotSet();
+        this.mandelbrotSet.juliaSet = new JuliaSet();
+        FractalColours colours = new FractalColours(Color.RED, Color.BLUE, Color.BLACK);
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(recording))) {
+
+            if (!InteractionRecorder.HEADER.equals(reader.readLine())) throw new IOException(recording + " is not an interaction recording");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+
+                String[] values = line.split(",");
+                if (values[0].equals("settings")) {
+
+                    conditions.readyToColourPalette = Boolean.parseBoolean(values[1]);
+                    conditions.readyToHistogramColour = Boolean.parseBoolean(values[2]);
+                    colours = new FractalColours(new Color(Integer.parseInt(values[3])), new Color(Integer.parseInt(values[4])), new Color(Integer.parseInt(values[5])));
+                    successiveRefinementOption = Integer.parseInt(values[6]);
+
+                }
+                else if (values[0].equals("set")) {
+
+                    FractalType type = FractalType.valueOf(values[1]);
+                    FractalSet fractalSet = type == FractalType.MANDELBROT ? mandelbrotSet : mandelbrotSet.juliaSet;
+                    if (type == FractalType.MANDELBROT) conditions.drawMandelbrot = Boolean.parseBoolean(values[2]);
+                    else conditions.drawJulia = Boolean.parseBoolean(values[2]);
+
+                    Dimension size = new Dimension(Integer.parseInt(values[3]), Integer.parseInt(values[4]));
+                    fractalSet.setDimensions(size);
+                    fractalSet.setMaxIterations(Integer.parseInt(values[5]));
+                    fractalSet.setPower(Double.parseDouble(values[6]));
+                    if (values.length > 11) chunkSize = Integer.parseInt(values[11]);
+                    fractalSet.setChunkSize(chunkSize);
+                    fractalSet.setZoom(Double.parseDouble(values[7]));
+                    fractalSet.setCentre(new ComplexNumber(values[8]));
+                    fractalSet.setzStart(values[9].equals("null") ? new ComplexNumber() : new ComplexNumber(values[9]));
+                    fractalSet.setC(new ComplexNumber(values[10]));
+
+                    diagrams[type.ordinal()] = new ArgandDiagram(fractalSet, conditions, colours, size);
+                    diagrams[type.ordinal()].setSize(size);
+                    screens[type.ordinal()] = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+
+                }
+                else if (values[0].equals("event")) events.add(values);
+
+            }
+
+        }
+
+        if (diagrams[FractalType.MANDELBROT.ordinal()] == null || diagrams[FractalType.JULIA.ordinal()] == null) {
+            throw new IOException(recording + " does not describe both fractals");
+        }
+
+    }
+
+    /**Replays every event at its recorded time, measuring the latency of each resulting frame*/
+    public void replay() throws InterruptedException {
+
+        renderFrame(true);
+        latencies.clear();
+        droppedFrames = 0;
+
+        long start = System.nanoTime();
+        for (String[] event: events) {
+
+            long scheduled = start + Long.parseLong(event[1]);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) Thread.sleep(wait / 1_000_000, (int)(wait % 1_000_000));
+
+            if (applyEvent(event)) latencies.add(firstPainted - scheduled);
+
+        }
+
+    }
+
+    /**Changes the fractals in the same way that the FractalController would and returns whether a frame was drawn*/
+    private boolean applyEvent(String[] event) {
+
+        FractalType pane = FractalType.valueOf(event[2]);
+        int id = Integer.parseInt(event[3]);
+        int x = Integer.parseInt(event[4]);
+        int y = Integer.parseInt(event[5]);
+        int button = Integer.parseInt(event[6]);
+        int modifiers = Integer.parseInt(event[7]);
+        int wheelRotation = Integer.parseInt(event[8]);
+
+        int index = pane.ordinal();
+        ArgandDiagram argandDiagram = diagrams[index];
+        FractalSet fractalSet = argandDiagram.getFractalSet();
+
+        if (id == MouseEvent.MOUSE_CLICKED && button == MouseEvent.BUTTON1) {
+            ComplexNumber newCentre = fractalSet.pixelToComplexNumber(x, y);
+            fractalSet.setCentre(newCentre);
+            if (pane == FractalType.MANDELBROT) mandelbrotSet.juliaSet.setC(newCentre);
+            renderFrame(true);
+            return true;
+        }
+        else if (id == MouseEvent.MOUSE_PRESSED) {
+            lastPos[index] = new Point(x, y);
+        }
+        else if (id == MouseEvent.MOUSE_RELEASED && button == MouseEvent.BUTTON1 && dragging[index]) {
+            dragging[index] = false;
+            argandDiagram.setImgLocation(new Point());
+            renderFrame(true);
+            return true;
+        }
+        else if (id == MouseEvent.MOUSE_WHEEL) {
+            FractalController.zoom(fractalSet, wheelRotation);
+            renderFrame(true);
+            return true;
+        }
+        else if (id == MouseEvent.MOUSE_DRAGGED && (modifiers & InputEvent.BUTTON1_DOWN_MASK) != 0 && lastPos[index] != null) {
+            dragging[index] = true;
+            argandDiagram.translateImgLocation(new Point(x - lastPos[index].x, y - lastPos[index].y));
+            ComplexNumber newCentre = FractalController.calculateNewCentre(fractalSet, x, y, lastPos[index]);
+            fractalSet.setCentre(newCentre);
+            if (pane == FractalType.MANDELBROT) mandelbrotSet.juliaSet.setC(newCentre);
+            lastPos[index] = new Point(x, y);
+            renderFrame(false);
+            return true;
+        }
+        else if (id == MouseEvent.MOUSE_DRAGGED && (modifiers & InputEvent.BUTTON3_DOWN_MASK) != 0) {
+            argandDiagram.track(x, y);
+            renderFrame(false);
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * Iterates the drawn fractals if required and paints every drawn diagram onto its off-screen image. With
+     * successive refinement on, a new frame is iterated and painted pass by pass as the SuccessiveRefiner does
+     */
+    private void renderFrame(boolean iterate) {
+
+        firstPainted = 0;
+        if (!iterate || successiveRefinementOption <= 1) {
+            renderPass(iterate, false);
+            return;
+        }
+        for (int passChunkSize = successiveRefinementOption; passChunkSize >= chunkSize; passChunkSize /= 2) {
+            mandelbrotSet.setChunkSize(passChunkSize);
+            mandelbrotSet.juliaSet.setChunkSize(passChunkSize);
+            renderPass(true, true);
+        }
+        mandelbrotSet.resetRefined();
+        mandelbrotSet.juliaSet.resetRefined();
+
+    }
+
+    /**Iterates the drawn fractals if required and paints them, counting the display refreshes that the pass took*/
+    private void renderPass(boolean iterate, boolean partOfSuccession) {
+
+        long start = System.nanoTime();
+        if (iterate) {
+            if (conditions.drawMandelbrot) mandelbrotSet.iterate(partOfSuccession);
+            if (conditions.drawJulia) mandelbrotSet.juliaSet.iterate(partOfSuccession);
+            conditions.readyToCreateImage = true;
+        }
+        paintDiagrams();
+        long finished = System.nanoTime();
+        if (firstPainted == 0) firstPainted = finished;
+        droppedFrames += (long)((finished - start) / FRAME_INTERVAL);
+
+    }
+
+    /**Paints every drawn diagram onto its off-screen image*/
+    private void paintDiagrams() {
+
+        for (FractalType type: FractalType.values()) {
+            boolean drawn = type == FractalType.MANDELBROT ? conditions.drawMandelbrot : conditions.drawJulia;
+            if (drawn) {
+                Graphics2D g = screens[type.ordinal()].createGraphics();
+                diagrams[type.ordinal()].paintComponent(g);
+                g.dispose();
+            }
+        }
+        conditions.readyToCreateImage = false;
+
+    }
+
+    /**Returns the latency in nanoseconds below which the given percentage of frames were drawn*/
+    public long percentile(double percentage) {
+
+        if (latencies.isEmpty()) return 0;
+        long[] sorted = new long[latencies.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = latencies.get(i);
+        Arrays.sort(sorted);
+        int rank = (int)Math.ceil(percentage / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+
+    }
+
+    public int getFrameCount() {
+        return latencies.size();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**Replays the recording given as the first argument and prints the latency report*/
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        if (args.length < 1) {
+            System.out.println("Usage: java mandelbrot.InteractionReplay recording.interactions");
+            return;
+        }
+
+        InteractionReplay replay = new InteractionReplay(new File(args[0]));
+        replay.replay();
+
+        System.out.println("Events replayed: " + replay.events.size());
+        System.out.println("Frames drawn: " + replay.getFrameCount());
+        System.out.println(String.format("Event-to-frame latency p50: %.3f ms", replay.percentile(50) / 1e6));
+        System.out.println(String.format("Event-to-frame latency p95: %.3f ms", replay.percentile(95) / 1e6));
+        System.out.println(String.format("Event-to-frame latency p99: %.3f ms", replay.percentile(99) / 1e6));
+        System.out.println(String.format("Event-to-frame latency max: %.3f ms", replay.percentile(100) / 1e6));
+        System.out.println("Dropped frames (at 60Hz): " + replay.getDroppedFrames());
+
+    }
+
+}
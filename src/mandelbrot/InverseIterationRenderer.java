@@ -0,0 +1,204 @@
+package mandelbrot;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Alternative renderer for the boundary of a Julia set that uses the modified inverse iteration method (MIIM)
+ * rather than escape time. Running the Julia set equation backwards (z → (z - c)^(1/d), which has d roots)
+ * pulls every point towards the boundary, so starting near the boundary and following every preimage traces
+ * out the whole of it. To stop the number of points doubling forever, each pixel only lets a limited number of
+ * points through it before it stops following them further, which means the work done grows with the length
+ * of the boundary rather than with the area of the image. Points that fall outside the view are counted on a
+ * coarser grid that covers the whole set, since their preimages can land back inside the view. The branches
+ * are shared between several worker threads that count hits on the same pixels. The output is a boundary
+ * bitmap of the same size as the Julia set's image that can be passed to a BoxCounter. Only integer powers
+ * are supported, as these are the only ones with a well defined set of roots.
+ */
+
+public class InverseIterationRenderer {
+
+    /**Number of backwards iterations used to move the starting point onto the boundary*/
+    private static final int SETTLING_ITERATIONS = 64;
+
+    /**Side length of the grid that counts hits outside the view*/
+    private static final int OUTER_GRID_SIZE = 1024;
+
+    /**Properties of the Julia set being drawn*/
+    private double cReal;
+    private double cImaginary;
+    private int degree;
+    private double zoom;
+    private double centreReal;
+    private double centreImaginary;
+    private int width;
+    private int height;
+
+    /**Radius of a disc that is known to contain the Julia set*/
+    private double radius;
+
+    /**Number of times a pixel can be visited before the points landing on it are no longer followed*/
+    private int hitCap;
+
+    /**Number of worker threads*/
+    private int threads;
+
+    /**Visits to each pixel in the view and to each cell of the grid outside it*/
+    private AtomicIntegerArray pixelHits;
+    private AtomicIntegerArray outerHits;
+
+    /**Constructs a renderer for the given Julia set's c value, power and view*/
+    public InverseIterationRenderer(FractalSet juliaSet) {
+
+        if (juliaSet.getPower() % 1 != 0 || juliaSet.getPower() < 2) {
+            throw new IllegalArgumentException("Inverse iteration needs an integer power of at least two");
+        }
+
+        this.cReal = juliaSet.getC().getReal();
+        this.cImaginary = juliaSet.getC().getImaginary();
+        this.degree = (int)juliaSet.getPower();
+        this.zoom = juliaSet.getZoom();
+        this.centreReal = juliaSet.getCentre().getReal();
+        this.centreImaginary = juliaSet.getCentre().getImaginary();
+        this.width = juliaSet.getDimensions().width;
+        this.height = juliaSet.getDimensions().height;
+        this.radius = Math.max(2, Math.hypot(cReal, cImaginary));
+        this.hitCap = 4;
+        this.threads = Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**Traces the boundary and returns it as a bitmap where true marks a boundary pixel*/
+    public boolean[][] render() throws InterruptedException {
+
+        boolean[][] boundary = new boolean[height][width];
+        pixelHits = new AtomicIntegerArray(width * height);
+        outerHits = new AtomicIntegerArray(OUTER_GRID_SIZE * OUTER_GRID_SIZE);
+
+        double[] seed = settle();
+        Branches frontier = new Branches();
+        frontier.push(seed[0], seed[1]);
+        while (frontier.size > 0 && frontier.size < threads * 16) {
+            Branches next = new Branches();
+            while (frontier.size > 0) {
+                frontier.pop();
+                if (visit(frontier.real, frontier.imaginary, boundary)) pushPreimages(next, frontier.real, frontier.imaginary);
+            }
+            frontier = next;
+        }
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Branches branches = new Branches();
+            for (int i = t; i < frontier.size; i += threads) branches.push(frontier.reals[i], frontier.imaginaries[i]);
+            workers[t] = new Thread(() -> trace(branches, boundary));
+            workers[t].start();
+        }
+        for (Thread worker: workers) worker.join();
+        return boundary;
+
+    }
+
+    /**Follows the preimages of every branch depth first until each lands on a pixel that is full*/
+    private void trace(Branches branches, boolean[][] boundary) {
+
+        while (branches.size > 0) {
+            branches.pop();
+            double real = branches.real;
+            double imaginary = branches.imaginary;
+            if (visit(real, imaginary, boundary)) pushPreimages(branches, real, imaginary);
+        }
+
+    }
+
+    /**Counts a visit to the pixel or outer cell under a point, returning whether its preimages should be followed*/
+    private boolean visit(double real, double imaginary, boolean[][] boundary) {
+
+        int x = (int)Math.floor((real - centreReal) * zoom) + width / 2;
+        int y = (int)Math.floor(-(imaginary - centreImaginary) * zoom) + height / 2;
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (pixelHits.getAndIncrement(y * width + x) >= hitCap) return false;
+            boundary[y][x] = true;
+            return true;
+        }
+
+        int outerX = (int)((real + radius) / (2 * radius) * OUTER_GRID_SIZE);
+        int outerY = (int)((imaginary + radius) / (2 * radius) * OUTER_GRID_SIZE);
+        if (outerX < 0 || outerX >= OUTER_GRID_SIZE || outerY < 0 || outerY >= OUTER_GRID_SIZE) return false;
+        return outerHits.getAndIncrement(outerY * OUTER_GRID_SIZE + outerX) < hitCap;
+
+    }
+
+    /**Pushes every d-th root of (z - c)*/
+    private void pushPreimages(Branches branches, double real, double imaginary) {
+
+        double wReal = real - cReal;
+        double wImaginary = imaginary - cImaginary;
+        double magnitude = Math.pow(Math.hypot(wReal, wImaginary), 1.0 / degree);
+        double angle = Math.atan2(wImaginary, wReal) / degree;
+        for (int k = 0; k < degree; k++) {
+            double rootAngle = angle + 2 * Math.PI * k / degree;
+            branches.push(magnitude * Math.cos(rootAngle), magnitude * Math.sin(rootAngle));
+        }
+
+    }
+
+    /**Runs backwards from an arbitrary point, taking each root in turn, until it sits on the boundary*/
+    private double[] settle() {
+
+        double real = 1;
+        double imaginary = 0;
+        Branches roots = new Branches();
+        for (int i = 0; i < SETTLING_ITERATIONS; i++) {
+            roots.size = 0;
+            pushPreimages(roots, real, imaginary);
+            real = roots.reals[i % degree];
+            imaginary = roots.imaginaries[i % degree];
+        }
+        return new double[] {real, imaginary};
+
+    }
+
+    public void setHitCap(int hitCap) {
+        this.hitCap = hitCap;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Growable stack of points held as primitive doubles, so that following millions of preimages does not
+     * create a ComplexNumber for each one. The most recently popped point is left in real and imaginary.
+     */
+    private static class Branches {
+
+        double[] reals = new double[256];
+        double[] imaginaries = new double[256];
+        int size;
+        double real;
+        double imaginary;
+
+        void push(double real, double imaginary) {
+
+            if (size == reals.length) {
+                reals = Arrays.copyOf(reals, size * 2);
+                imaginaries = Arrays.copyOf(imaginaries, size * 2);
+            }
+            reals[size] = real;
+            imaginaries[size] = imaginary;
+            size++;
+
+        }
+
+        void pop() {
+
+            size--;
+            real = reals[size];
+            imaginary = imaginaries[size];
+
+        }
+
+    }
+
+}
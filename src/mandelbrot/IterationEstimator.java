@@ -0,0 +1,171 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Object that chooses the max iterations for the current view of a fractal, so that the user neither has to guess
+ * too low and see black blobs where points escape late, nor too high and wait while interior points run for far
+ * longer than anything outside the set needs. A sparse grid of points across the view is iterated with a cap that
+ * starts higher the deeper the zoom, and the cap is doubled for the points that are still unescaped for as long as
+ * more than a small fraction of the grid keeps escaping after each doubling. The points left once escapes have
+ * dried up are taken to be inside the set, and the max iterations is the smallest count that leaves no more than
+ * that fraction of the escaping points unresolved. The iterations spent on an estimate are bounded so that it can run
+ * between frames, and if the budget runs out while points are still escaping, the cap reached is chosen.
+ */
+
+public class IterationEstimator {
+
+    /**Number of points along each side of the grid sampled*/
+    private static final int GRID = 48;
+
+    /**Fraction of the grid that may be left unresolved, or escape during a doubling without it being continued*/
+    private static final double UNRESOLVED_FRACTION = 0.002;
+
+    /**Bounds on the max iterations that can be chosen*/
+    private static final int MIN_ITERATIONS = 50;
+    private static final int MAX_ITERATIONS = 1 << 16;
+
+    /**Most iterations spent on one estimate*/
+    private static final long WORK_BUDGET = 1 << 24;
+
+    /**Zoom at which the whole set is in view, from which the depth of a zoom is measured*/
+    private static final double DEFAULT_ZOOM = 150;
+
+    /**Fractal whose view is sampled, and the copy of it used to iterate points its own way*/
+    private FractalSet fractalSet;
+    private FractalSet kernel;
+
+    /**Whether the points are iterated here in doubles, so that they can carry on from where the last cap stopped*/
+    private boolean direct;
+
+    /**Escape count of each point, zero while unescaped and -1 if known to be inside, and the z each unescaped point has reached*/
+    private int[] counts;
+    private double[] zReal;
+    private double[] zImaginary;
+
+    /**Cap the points have been iterated up to, and the number of points still unescaped and not known to be inside*/
+    private int cap;
+    private int unescaped;
+
+    /**Constructs an estimator for the current view of the fractal*/
+    public IterationEstimator(FractalSet fractalSet) {
+
+        this.fractalSet = fractalSet;
+        this.direct = fractalSet.getFormula() == null && fractalSet.getPower() % 1 == 0 && fractalSet.getPower() >= 2;
+        if (!direct) {
+            this.kernel = fractalSet.clone();
+            this.kernel.setDimensions(new Dimension(1, 1));
+        }
+
+    }
+
+    /**Samples the view and returns the smallest max iterations that resolves all but a small fraction of it*/
+    public int estimate() {
+
+        int samples = GRID * GRID;
+        int allowance = (int)(UNRESOLVED_FRACTION * samples);
+        counts = new int[samples];
+        zReal = new double[samples];
+        zImaginary = new double[samples];
+        unescaped = samples;
+        cap = 0;
+        long work = 0;
+
+        int newCap = startingCap();
+        while (true) {
+            work += (long)unescaped * (newCap - cap);
+            int escaped = iterateTo(newCap);
+            if (unescaped == 0 || cap >= MAX_ITERATIONS || (escaped <= allowance && cap > startingCap())) break;
+            newCap = (int)Math.min(Math.min(MAX_ITERATIONS, cap * 2L), cap + (WORK_BUDGET - work) / unescaped);
+            if (newCap <= cap) return Math.max(MIN_ITERATIONS, cap);
+        }
+
+        int[] escapeCounts = Arrays.stream(counts).filter(count -> count > 0).sorted().toArray();
+        if (escapeCounts.length <= allowance) return MIN_ITERATIONS;
+        int chosen = escapeCounts[escapeCounts.length - 1 - allowance] + 1;
+        return Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, chosen));
+
+    }
+
+    /**Returns the first cap to try, which grows with the number of decades the view has been zoomed in by*/
+    private int startingCap() {
+
+        double decades = Math.max(0, Math.log10(fractalSet.getZoom() / DEFAULT_ZOOM));
+        return (int)Math.min(MAX_ITERATIONS, 2 * MIN_ITERATIONS * (1 + decades));
+
+    }
+
+    /**Iterates every unescaped point up to a new cap, returning how many of them escaped*/
+    private int iterateTo(int newCap) {
+
+        int[][] iterations = fractalSet.getIterations();
+        int width = iterations[0].length;
+        int height = iterations.length;
+        boolean julia = fractalSet.getType() == FractalType.JULIA;
+        int escaped = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+
+            if (counts[i] != 0) continue;
+            ComplexNumber point = fractalSet.pixelToComplexNumber((int)((i % GRID + 0.5) * width / GRID), (int)((i / GRID + 0.5) * height / GRID));
+            int count;
+            if (cap == 0 && (point.sqrOfMagnitude() > 4 || (!julia && fractalSet.getFormula() == null
+                    && AttractingCycle.isKnownInterior(point, fractalSet.getPower(), fractalSet.getzStart())))) {
+                count = point.sqrOfMagnitude() > 4 ? 1 : -1;
+            }
+            else if (direct) {
+                if (cap == 0) {
+                    zReal[i] = julia ? point.getReal() : fractalSet.getzStart().getReal();
+                    zImaginary[i] = julia ? point.getImaginary() : fractalSet.getzStart().getImaginary();
+                }
+                ComplexNumber c = julia ? fractalSet.getC() : point;
+                count = iterateDirectly(i, c.getReal(), c.getImaginary(), newCap);
+            }
+            else {
+                kernel.setMaxIterations(newCap);
+                count = EdgeSupersampler.iteratePoint(kernel, point, 0, 0);
+                count = count == newCap ? 0 : Math.max(1, count);
+            }
+
+            if (count == -1) {
+                counts[i] = -1;
+                unescaped--;
+            }
+            else if (count > 0) {
+                counts[i] = count;
+                unescaped--;
+                escaped++;
+            }
+
+        }
+        cap = newCap;
+        return escaped;
+
+    }
+
+    /**Carries on iterating a point from the z it has reached up to a new cap, returning its escape count (at least 1) or zero*/
+    private int iterateDirectly(int index, double cReal, double cImaginary, int newCap) {
+
+        int power = (int)fractalSet.getPower();
+        double real = zReal[index];
+        double imaginary = zImaginary[index];
+        for (int i = cap; i < newCap; i++) {
+            if (real * real + imaginary * imaginary > 4) return Math.max(1, i);
+            double powerReal = real;
+            double powerImaginary = imaginary;
+            for (int p = 1; p < power; p++) {
+                double nextReal = powerReal * real - powerImaginary * imaginary;
+                powerImaginary = powerReal * imaginary + real * powerImaginary;
+                powerReal = nextReal;
+            }
+            real = powerReal + cReal;
+            imaginary = powerImaginary + cImaginary;
+        }
+        zReal[index] = real;
+        zImaginary[index] = imaginary;
+        return real * real + imaginary * imaginary > 4 ? newCap : 0;
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package mandelbrot;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renderer that shows the Julia set of whichever point of the Mandelbrot set the cursor is over, so the shapes can
+ * be explored without clicking. The Julia set is iterated on a copy of it by a dedicated worker thread, starting at
+ * a coarse chunk size so that each new point is shown within a frame, and halving the chunk size for as long as the
+ * cursor rests until the chosen resolution is reached. Only the latest point is ever rendered: moving the cursor
+ * interrupts the render of the last point, and new renders are started no more often than the display refreshes.
+ * The images are shown over the Julia pane without touching the real Julia set, which is shown again when stopped.
+ */
+
+public class JuliaHoverPreview {
+
+    /**Chunk size that the render of each new point starts at*/
+    private static final int COARSE_CHUNK_SIZE = 8;
+
+    /**Shortest time between the starts of two renders, in nanoseconds*/
+    private static final long FRAME_PERIOD = 16_000_000;
+
+    /**Diagram that the images are shown on, and the copy of its Julia set and diagram that they are rendered with*/
+    private ArgandDiagram juliaDiagram;
+    private JuliaSet kernel;
+    private ArgandDiagram kernelDiagram;
+
+    /**Chunk size at which the render of a point is finished*/
+    private int minChunkSize;
+
+    /**Latest point that the cursor has moved to and not yet been rendered, null if there is none*/
+    private ComplexNumber target;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    /**Constructs a preview that shows Julia sets with the view and colouring of the given diagram's Julia set*/
+    public JuliaHoverPreview(ArgandDiagram juliaDiagram, JuliaSet juliaSet, int minChunkSize) {
+
+        this.juliaDiagram = juliaDiagram;
+        this.kernel = juliaSet.clone();
+        this.kernel.setSupersampling(1);
+        DrawingConditions conditions = juliaDiagram.conditions.clone();
+        conditions.readyToPreview = false;
+        conditions.readyToDrawIterationHeatmap = false;
+        conditions.readyToDrawTimeHeatmap = false;
+        this.kernelDiagram = new ArgandDiagram(kernel, conditions, juliaDiagram.colours, kernel.getDimensions());
+        this.minChunkSize = Math.min(minChunkSize, COARSE_CHUNK_SIZE);
+
+    }
+
+    /**Starts the worker thread, slightly below normal priority so that it gives way to the main renders*/
+    public void start() {
+
+        running = true;
+        worker = new Thread(this::render, "JuliaHoverPreview");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.NORM_PRIORITY - 1);
+        worker.start();
+
+    }
+
+    /**Renders the Julia set of a point next, abandoning the render of any earlier point*/
+    public synchronized void follow(ComplexNumber c) {
+
+        target = c;
+        notifyAll();
+        if (worker != null) worker.interrupt();
+
+    }
+
+    /**Stops the worker thread and removes the images from the Julia pane, without waiting for the worker*/
+    public void stop() {
+
+        running = false;
+        synchronized (this) {
+            notifyAll();
+            if (worker != null) worker.interrupt();
+        }
+        juliaDiagram.setHoverImage(null);
+
+    }
+
+    /**Waits for each new point and renders its Julia set at increasing resolutions until a newer point arrives*/
+    private void render() {
+
+        long lastStart = 0;
+        while (running) {
+
+            long wait = lastStart + FRAME_PERIOD - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1_000_000, (int)(wait % 1_000_000));
+                } catch (InterruptedException e) {
+                    // a newer point has arrived, which is picked up below
+                }
+            }
+
+            ComplexNumber c;
+            synchronized (this) {
+                while (running && target == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // woken by a new point or by being stopped
+                    }
+                }
+                Thread.interrupted();
+                c = target;
+                target = null;
+            }
+            if (!running) return;
+            lastStart = System.nanoTime();
+
+            kernel.setC(c);
+            kernel.resetRefined();
+            kernel.setPixelArea(0);
+            for (int chunkSize = COARSE_CHUNK_SIZE; chunkSize >= minChunkSize; chunkSize /= 2) {
+                kernel.setChunkSize(chunkSize);
+                kernel.iterate(true);
+                if (Thread.currentThread().isInterrupted() || !running) break;
+                publish(kernelDiagram.renderImage());
+            }
+
+        }
+
+    }
+
+    /**Shows an image on the Julia pane, unless the preview has been stopped in the meantime*/
+    private void publish(BufferedImage image) {
+
+        SwingUtilities.invokeLater(() -> {
+            if (running) juliaDiagram.setHoverImage(image);
+        });
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package mandelbrot;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.*;
+
+/**
+ * Renderer that produces an animation of Julia sets as their c value is swept along a MorphPath in the
+ * Mandelbrot plane. Each frame is an independent JuliaSet, so frames are iterated and coloured concurrently
+ * on a pool of worker threads. Only a bounded number of frames are allowed to be in flight at once, which
+ * keeps memory usage fixed however long the animation is, and finished frames are written out in order as
+ * a numbered PNG sequence. The time spent on each frame is recorded alongside its c value so that slow
+ * sections of the path (usually those hugging the boundary of the Mandelbrot set) can be found.
+ */
+
+public class JuliaMorphRenderer {
+
+    /**Path that the c value follows*/
+    private MorphPath path;
+
+    /**JuliaSet whose properties (zoom, centre, power, max iterations and size) every frame copies*/
+    private JuliaSet template;
+
+    /**Drawing properties shared by every frame*/
+    private DrawingConditions conditions;
+    private FractalColours colours;
+
+    /**Total number of frames in the animation*/
+    private int frames;
+
+    /**Number of worker threads that iterate frames*/
+    private int threads;
+
+    /**Maximum number of frames that may be rendered or waiting to be written at once*/
+    private int maxFramesInFlight;
+
+    /**Time taken in nanoseconds to iterate and colour each frame*/
+    private long[] frameCosts;
+
+    /**Constructs a renderer that will sweep the template JuliaSet along the path over the given number of frames*/
+    public JuliaMorphRenderer(MorphPath path, JuliaSet template, DrawingConditions conditions, FractalColours colours, int frames) {
+
+        this.path = path;
+        this.template = template;
+        this.conditions = conditions.clone();
+        this.colours = colours;
+        this.frames = frames;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.maxFramesInFlight = threads * 2;
+        this.frameCosts = new long[frames];
+
+    }
+
+    /**Renders every frame and writes them, in order, to the directory as frame-00000.png onwards with a frame-costs.csv report*/
+    public void render(File directory) throws IOException, InterruptedException {
+
+        if (!directory.exists() && !directory.mkdirs()) throw new IOException("Could not create " + directory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        GenericQueue<Future<MorphFrame>> pending = new GenericQueue<>();
+        int inFlight = 0;
+
+        try (PrintWriter report = new PrintWriter(new File(directory, "frame-costs.csv"))) {
+
+            report.println("frame,real,imaginary,milliseconds,pixelArea");
+            for (int i = 0; i < frames; i++) {
+
+                if (inFlight == maxFramesInFlight) {
+                    writeFrame(pending.remove(), directory, report);
+                    inFlight--;
+                }
+
+                final int index = i;
+                pending.add(executor.submit(() -> renderFrame(index)));
+                inFlight++;
+
+                while (!pending.isEmpty() && pending.peekHead().isDone()) {
+                    writeFrame(pending.remove(), directory, report);
+                    inFlight--;
+                }
+
+            }
+            while (!pending.isEmpty()) writeFrame(pending.remove(), directory, report);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+    /**Iterates and colours a single frame of the animation*/
+    private MorphFrame renderFrame(int index) {
+
+        long start = System.nanoTime();
+
+        JuliaSet juliaSet = template.clone();
+        juliaSet.setC(path.pointAt(frames == 1 ? 0 : index / (double)(frames - 1)));
+        juliaSet.iterate(false);
+
+        ArgandDiagram diagram = new ArgandDiagram(juliaSet, conditions.clone(), colours, juliaSet.getDimensions());
+        BufferedImage image = diagram.renderImage();
+
+        return new MorphFrame(index, juliaSet.getC(), juliaSet.getPixelArea(), image, System.nanoTime() - start);
+
+    }
+
+    /**Waits for a frame to finish, then saves its image and records its cost*/
+    private void writeFrame(Future<MorphFrame> future, File directory, PrintWriter report) throws IOException, InterruptedException {
+
+        MorphFrame frame;
+        try {
+            frame = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Frame failed to render", e.getCause());
+        }
+
+        ImageIO.write(frame.image, "png", new File(directory, String.format("frame-%05d.png", frame.index)));
+        frameCosts[frame.index] = frame.cost;
+        report.println(frame.index + "," + frame.c.getReal() + "," + frame.c.getImaginary() + "," + frame.cost / 1_000_000.0 + "," + frame.pixelArea);
+
+    }
+
+    public long[] getFrameCosts() {
+        return frameCosts;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+        this.maxFramesInFlight = threads * 2;
+    }
+
+    /**Record of a finished frame that is waiting to be written*/
+    private static class MorphFrame {
+
+        final int index;
+        final ComplexNumber c;
+        final int pixelArea;
+        final BufferedImage image;
+        final long cost;
+
+        MorphFrame(int index, ComplexNumber c, int pixelArea, BufferedImage image, long cost) {
+
+            this.index = index;
+            this.c = c;
+            this.pixelArea = pixelArea;
+            this.image = image;
+            this.cost = cost;
+
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package mandelbrot;
 
 import java.awt.*;
+import java.util.function.Consumer;
 
 /**
  * Very similar to and contained within the MandelbrotSet object. Implements the FractalSet
@@ -34,6 +35,15 @@ public class JuliaSet implements FractalSet {
     /**Measure of effective resolution of the JuliaSet*/
     private int chunkSize;
 
+    /**Number of iterations executed and pixels skipped by shortcuts during the current pass*/
+    private long iterationsExecuted;
+    private long pixelsSkipped;
+
+    /**Whether the cost of each pixel is being recorded, and the iterations and nanoseconds that each pixel cost*/
+    private boolean recordingCosts;
+    private int[][] iterationCosts;
+    private int[][] timeCosts;
+
     /**Total number of pixels within the JuliaSet*/
     private int pixelArea;
 
@@ -48,12 +58,40 @@ public class JuliaSet implements FractalSet {
     /**The c value of this JuliaSet that describes its unique shape*/
     private ComplexNumber c;
 
+    /**User defined formula that replaces z^power + c when set, and the last result of the formula or single precision kernel*/
+    private Formula formula;
+    private final double[] formulaResult = new double[2];
+
+    /**Whether single precision may be used at shallow zooms, and whether the current pass is using it*/
+    private boolean singlePrecisionAllowed = true;
+    private boolean singlePrecision;
+
+    /**Whether pixels far outside the set are filled from distance estimates rather than iterated*/
+    private boolean distanceEstimation;
+
+    /**Side of the grid of jittered samples taken in each edge pixel, or 0 for none, and the samples of the last pass*/
+    private int supersampling;
+    private int[][][] subSamples;
+
+    /**Metrics that iteration passes are recorded in, unregistered unless this fractal is onscreen*/
+    private RenderMetrics metrics = RenderMetrics.unregistered();
+
+    /**Order and size of the tiles of the image, the pixel the cursor order spirals out from, and what is run after each tile*/
+    private TileOrder tileOrder = TileOrder.ROWS;
+    private int tileSize = TileScheduler.DEFAULT_TILE_SIZE;
+    private Point tileFocus;
+    private Consumer<Rectangle> tilePublisher;
+
+    /**Attracting cycle of the equation, whose trap marks interior points early, and the last result of its kernel*/
+    private AttractingCycle attractingCycle;
+    private final double[] cycleResult = new double[3];
+
     /**Empty constructor*/
     public JuliaSet() {
 
     }
 
-    /**Constructs a Julia set based on the current properties of the Mandelbrot set*/
+    /**Constructs a Julia set based on the current properties of the Mandelbrot set, which is left to be iterated once it has been set up*/
     public JuliaSet(MandelbrotSet mandelbrotSet) {
 
         this.setDimensions(mandelbrotSet.getDimensions());
@@ -64,27 +102,110 @@ public class JuliaSet implements FractalSet {
         this.centre = new ComplexNumber();
         this.zStart = new ComplexNumber();
         this.c = mandelbrotSet.getCentre();
-        this.iterate(false);
+        this.formula = mandelbrotSet.getFormula();
+        this.singlePrecisionAllowed = mandelbrotSet.isSinglePrecisionAllowed();
+        this.distanceEstimation = mandelbrotSet.isDistanceEstimation();
+        this.supersampling = mandelbrotSet.getSupersampling();
 
     }
 
     /**Iterates through every pixel on screen, calculating the number of iterations*/
     public void iterate(boolean partOfSuccession) {
 
+        long start = System.nanoTime();
+        Object job = FlightRecorderEvents.beginRenderJob();
+        iterationsExecuted = 0;
+        pixelsSkipped = 0;
+        singlePrecision = singlePrecisionAllowed && SinglePrecisionKernel.isPrecisionEnough(this);
         if (!partOfSuccession || chunkSize == 16) pixelArea = 0;
+
+        if (distanceEstimation && DistanceEstimateSampler.isSupported(this)) {
+            DistanceEstimateSampler sampler = new DistanceEstimateSampler(this);
+            sampler.sample(partOfSuccession);
+            iterationsExecuted = sampler.getIterationsExecuted();
+            pixelsSkipped = sampler.getPixelsSkipped();
+            pixelArea += sampler.getInteriorPixels();
+            supersampleEdges();
+            metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+            FlightRecorderEvents.commitRenderJob(job, this, iterationsExecuted, pixelsSkipped);
+            return;
+        }
         
-        for (int y = 0; y < iterations.length; y += chunkSize) {
-            for (int x = 0; x < iterations[0].length; x += chunkSize) {
+        int[] symmetryCentre = findSymmetryCentre();
+        TileScheduler scheduler = new TileScheduler(tileOrder, tileSize, iterations[0].length, iterations.length, chunkSize, tileFocus);
+
+        for (int n = 0; n < scheduler.size(); n++) {
+
+            if (partOfSuccession && Thread.currentThread().isInterrupted()) break;
+            Object tile = FlightRecorderEvents.beginTile();
+            long tileStartIterations = iterationsExecuted;
+            Rectangle bounds = scheduler.getTile(n);
+            int bottom = Math.min(bounds.y + bounds.height, iterations.length);
+            int right = Math.min(bounds.x + bounds.width, iterations[0].length);
+            for (int y = bounds.y; y < bottom; y += chunkSize) {
 
-                if (partOfSuccession) {
-                    if (!refined[y][x]) {
+                int mirrorY = symmetryCentre == null ? -1 : symmetryCentre[1] - y;
+                for (int x = bounds.x; x < right; x += chunkSize) {
+
+                    if (partOfSuccession) {
+                        if (refined[y][x]) continue;
                         refined[y][x] = true;
-                        assignIterations(x, y);
                     }
+                    int mirrorX = symmetryCentre == null ? -1 : symmetryCentre[0] - x;
+                    if (isComputedReflection(scheduler, mirrorX, mirrorY, x, y)) mirrorPixel(x, y, mirrorX, mirrorY);
+                    else assignIterations(x, y);
+
                 }
-                else assignIterations(x, y);
 
             }
+            scheduler.markDone(n);
+            FlightRecorderEvents.commitTile(tile, type, bounds.x, bounds.y, right - bounds.x, bottom - bounds.y, iterationsExecuted - tileStartIterations);
+            if (tilePublisher != null) tilePublisher.accept(bounds);
+
+        }
+        supersampleEdges();
+        metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+        FlightRecorderEvents.commitRenderJob(job, this, iterationsExecuted, pixelsSkipped);
+
+    }
+
+    /**
+     * Returns twice the pixel coordinates of the origin if the view can be rotated half a turn about it, or null if it
+     * cannot. With an even power z and -z have the same image, so they escape after the same number of iterations and
+     * leave the same result, and pixels only pair up exactly when the origin lies on or halfway between pixels.
+     */
+    private int[] findSymmetryCentre() {
+
+        if (formula != null || power % 2 != 0) return null;
+        double centreX = 2 * (iterations[0].length / 2 - centre.getReal() * zoom);
+        double centreY = 2 * (iterations.length / 2 + centre.getImaginary() * zoom);
+        long column = Math.round(centreX);
+        long row = Math.round(centreY);
+        if (Math.abs(centreX - column) > 1e-6 || Math.abs(centreY - row) > 1e-6) return null;
+        if (column < 0 || column >= 2 * iterations[0].length || row < 0 || row >= 2 * iterations.length) return null;
+        return new int[] {(int)column, (int)row};
+
+    }
+
+    /**Checks whether the reflection of a pixel through the origin is onscreen and has been calculated before it*/
+    private boolean isComputedReflection(TileScheduler scheduler, int mirrorX, int mirrorY, int x, int y) {
+
+        if (mirrorX < 0 || mirrorY < 0 || mirrorX >= iterations[0].length || mirrorY >= iterations.length) return false;
+        if (mirrorX % chunkSize != 0 || mirrorY % chunkSize != 0) return false;
+        return scheduler.isIteratedBefore(mirrorX, mirrorY, x, y);
+
+    }
+
+    /**Copies a pixel from its reflection through the origin, which has already been calculated*/
+    private void mirrorPixel(int x, int y, int mirrorX, int mirrorY) {
+
+        iterations[y][x] = iterations[mirrorY][mirrorX];
+        lastResults[y][x] = lastResults[mirrorY][mirrorX];
+        if (iterations[y][x] == maxIterations) pixelArea++;
+        pixelsSkipped++;
+        if (recordingCosts) {
+            iterationCosts[y][x] = 0;
+            timeCosts[y][x] = 0;
         }
 
     }
@@ -92,6 +213,8 @@ public class JuliaSet implements FractalSet {
     /**Iterates upon a given complex number*/
     public void assignIterations(int x, int y) {
 
+        long start = recordingCosts ? System.nanoTime() : 0;
+        long startIterations = iterationsExecuted;
         int iterationsCount;
         zStart = pixelToComplexNumber(x, y);
         if (zStart.sqrOfMagnitude() <= 4) {
@@ -100,9 +223,14 @@ public class JuliaSet implements FractalSet {
         }
         else  {
             iterationsCount = 1;
-            lastResults[y][x] =  pixelToComplexNumber(x ,y).pow(power).add(c);
+            lastResults[y][x] = formula != null ? zStart : pixelToComplexNumber(x ,y).pow(power).add(c);
+            pixelsSkipped++;
         }
         iterations[y][x] = iterationsCount;
+        if (recordingCosts) {
+            iterationCosts[y][x] = (int)(iterationsExecuted - startIterations);
+            timeCosts[y][x] = (int)Math.min(Integer.MAX_VALUE, System.nanoTime() - start);
+        }
 
     }
 
@@ -128,6 +256,32 @@ public class JuliaSet implements FractalSet {
     /**Iterates upon the input complex number (with the Julia set equation) until it breaks, or bails out*/
     public int numIterations(ComplexNumber zStart, ComplexNumber c, int x, int y) {
 
+        if (formula != null) {
+            int count = formula.getKernel().iterate(zStart.getReal(), zStart.getImaginary(), c.getReal(), c.getImaginary(), maxIterations, formulaResult);
+            iterationsExecuted += count;
+            lastResults[y][x] = new ComplexNumber(formulaResult[0], formulaResult[1]);
+            return count;
+        }
+        if (power % 1 == 0 && power >= 2) {
+            if (attractingCycle == null || !attractingCycle.isFor(c, (int)power)) attractingCycle = AttractingCycle.find(c, (int)power);
+            if (attractingCycle.getPeriod() > 0) {
+                int count = attractingCycle.iterate(zStart.getReal(), zStart.getImaginary(), maxIterations, cycleResult);
+                iterationsExecuted += count;
+                lastResults[y][x] = new ComplexNumber(cycleResult[0], cycleResult[1]);
+                if (cycleResult[2] == 1) {
+                    pixelsSkipped++;
+                    return maxIterations;
+                }
+                return count;
+            }
+        }
+        if (singlePrecision) {
+            int count = SinglePrecisionKernel.iterate((float)zStart.getReal(), (float)zStart.getImaginary(), (float)c.getReal(), (float)c.getImaginary(), (int)power, maxIterations, formulaResult);
+            iterationsExecuted += count;
+            lastResults[y][x] = new ComplexNumber(formulaResult[0], formulaResult[1]);
+            return count;
+        }
+
         int i;
 
         for (i = 0; i < maxIterations && zStart.sqrOfMagnitude() <= 4; i++) {
@@ -137,6 +291,7 @@ public class JuliaSet implements FractalSet {
             else zStart = zStart.pow(power);
             zStart = zStart.add(c);
         }
+        iterationsExecuted += i;
         lastResults[y][x] = zStart;
 
         return i;
@@ -146,7 +301,11 @@ public class JuliaSet implements FractalSet {
     /**Moves the iterations forward from current max iterations a given value*/
     public void partiallyIterate(int change) {
 
+        long start = System.nanoTime();
+        iterationsExecuted = 0;
+        pixelsSkipped = 0;
         maxIterations += change;
+        singlePrecision = singlePrecisionAllowed && SinglePrecisionKernel.isPrecisionEnough(this);
         for (int y = 0; y < lastResults.length; y += chunkSize) {
             for (int x = 0; x < lastResults[0].length; x += chunkSize) {
 
@@ -159,13 +318,45 @@ public class JuliaSet implements FractalSet {
 
             }
         }
+        supersampleEdges();
+        metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+
+    }
+
+    /**Takes extra samples in the pixels on edges once the image is at full resolution, if anti-aliasing is on and the pass was not cancelled*/
+    private void supersampleEdges() {
+
+        boolean wanted = supersampling > 1 && chunkSize == 1 && !Thread.currentThread().isInterrupted();
+        subSamples = wanted ? new EdgeSupersampler(this, supersampling).sample() : null;
 
     }
 
 
-    /**Calculates the number of iterations to be added on to this complex numbers bailout*/
+    /**
+     * Calculates the number of iterations to be added on to this complex numbers bailout. Points already caught in
+     * the trap of an attracting cycle are found in the first step and moved straight to the new max iterations
+     */
     public ComplexNumber stepIterationsUp(ComplexNumber zCurrent, int x, int y, int steps) {
 
+        if (formula != null) {
+            int count = formula.getKernel().iterate(zCurrent.getReal(), zCurrent.getImaginary(), c.getReal(), c.getImaginary(), steps, formulaResult);
+            iterationsExecuted += count;
+            iterations[y][x] += count;
+            return new ComplexNumber(formulaResult[0], formulaResult[1]);
+        }
+        if (power % 1 == 0 && power >= 2) {
+            if (attractingCycle == null || !attractingCycle.isFor(c, (int)power)) attractingCycle = AttractingCycle.find(c, (int)power);
+            if (attractingCycle.getPeriod() > 0) {
+                int count = attractingCycle.iterate(zCurrent.getReal(), zCurrent.getImaginary(), steps, cycleResult);
+                iterationsExecuted += count;
+                if (cycleResult[2] == 1) {
+                    pixelsSkipped++;
+                    iterations[y][x] += steps;
+                }
+                else iterations[y][x] += count;
+                return new ComplexNumber(cycleResult[0], cycleResult[1]);
+            }
+        }
         int i;
         for (i = 0; i < steps && zCurrent.sqrOfMagnitude() < 4; i++) {
             if (power % 1 == 0) {
@@ -174,28 +365,51 @@ public class JuliaSet implements FractalSet {
             else zCurrent = zCurrent.pow(power);
             zCurrent = zCurrent.add(c);
         }
+        iterationsExecuted += i;
         iterations[y][x] += i;
         return zCurrent;
 
     }
 
-     /**Adds the result after each iteration of a complex number to the tracking queue*/
-    public GenericQueue<ComplexNumber> fillTrackingQueue(ComplexNumber zStart) {
+    /**Adds the result after each iteration of a complex number to the orbit, without creating objects for integer powers*/
+    public void fillOrbit(ComplexNumber zStart, OrbitBuffer orbit) {
 
-        GenericQueue<ComplexNumber> queue = new GenericQueue<>();
+        orbit.clear();
+        orbit.add(zStart.getReal(), zStart.getImaginary());
         int i = 1;
-        ComplexNumber current = zStart;
-        queue.add(current);
-        while (i <= maxIterations && current.sqrOfMagnitude() <= 4) {
-            if (power % 1 == 0) {
-                current = current.pow((int)power);
+        if (formula != null) {
+            double[] result = {zStart.getReal(), zStart.getImaginary()};
+            while (i <= maxIterations && result[0] * result[0] + result[1] * result[1] <= 4) {
+                formula.getKernel().iterate(result[0], result[1], c.getReal(), c.getImaginary(), 1, result);
+                orbit.add(result[0], result[1]);
+                i++;
+            }
+        }
+        else if (power % 1 == 0) {
+            double real = zStart.getReal();
+            double imaginary = zStart.getImaginary();
+            while (i <= maxIterations && real * real + imaginary * imaginary <= 4) {
+                double powerReal = real;
+                double powerImaginary = imaginary;
+                for (int p = 1; p < power; p++) {
+                    double nextReal = powerReal * real - powerImaginary * imaginary;
+                    powerImaginary = powerReal * imaginary + real * powerImaginary;
+                    powerReal = nextReal;
+                }
+                real = powerReal + c.getReal();
+                imaginary = powerImaginary + c.getImaginary();
+                orbit.add(real, imaginary);
+                i++;
+            }
+        }
+        else {
+            ComplexNumber current = zStart;
+            while (i <= maxIterations && current.sqrOfMagnitude() <= 4) {
+                current = current.pow(power).add(c);
+                orbit.add(current.getReal(), current.getImaginary());
+                i++;
             }
-            else current = current.pow(power);
-            current = current.add(c);
-            queue.add(current);
-            i++;
         }
-        return queue;
 
     }
 
@@ -213,6 +427,11 @@ public class JuliaSet implements FractalSet {
         clone.centre = this.centre;
         clone.c = this.c;
         clone.zoom = this.zoom;
+        clone.formula = this.formula;
+        clone.singlePrecisionAllowed = this.singlePrecisionAllowed;
+        clone.singlePrecision = this.singlePrecision;
+        clone.distanceEstimation = this.distanceEstimation;
+        clone.supersampling = this.supersampling;
 
         return clone;
 
@@ -255,6 +474,11 @@ public class JuliaSet implements FractalSet {
         this.iterations = new int[dimensions.height][dimensions.width];
         this.lastResults = new ComplexNumber[dimensions.height][dimensions.width];
         this.refined = new boolean[dimensions.height][dimensions.width];
+        this.subSamples = null;
+        if (recordingCosts) {
+            this.iterationCosts = new int[dimensions.height][dimensions.width];
+            this.timeCosts = new int[dimensions.height][dimensions.width];
+        }
 
     }
 
@@ -286,6 +510,28 @@ public class JuliaSet implements FractalSet {
         this.refined = refined;
     }
 
+    public boolean isRecordingCosts() {
+        return recordingCosts;
+    }
+
+    public void setRecordingCosts(boolean recordingCosts) {
+
+        this.recordingCosts = recordingCosts;
+        if (recordingCosts && (iterationCosts == null || iterationCosts.length != iterations.length || iterationCosts[0].length != iterations[0].length)) {
+            this.iterationCosts = new int[iterations.length][iterations[0].length];
+            this.timeCosts = new int[iterations.length][iterations[0].length];
+        }
+
+    }
+
+    public int[][] getIterationCosts() {
+        return iterationCosts;
+    }
+
+    public int[][] getTimeCosts() {
+        return timeCosts;
+    }
+
     public int getMaxIterations() {
         return maxIterations;
     }
@@ -350,4 +596,76 @@ public class JuliaSet implements FractalSet {
         this.c = c;
     }
 
+    public Formula getFormula() {
+        return formula;
+    }
+
+    public void setFormula(Formula formula) {
+        this.formula = formula;
+    }
+
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    public boolean isSinglePrecisionAllowed() {
+        return singlePrecisionAllowed;
+    }
+
+    public void setSinglePrecisionAllowed(boolean singlePrecisionAllowed) {
+        this.singlePrecisionAllowed = singlePrecisionAllowed;
+    }
+
+    public boolean isDistanceEstimation() {
+        return distanceEstimation;
+    }
+
+    public void setDistanceEstimation(boolean distanceEstimation) {
+        this.distanceEstimation = distanceEstimation;
+    }
+
+    public int getSupersampling() {
+        return supersampling;
+    }
+
+    public void setSupersampling(int supersampling) {
+        this.supersampling = supersampling;
+    }
+
+    public int[][][] getSubSamples() {
+        return subSamples;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public TileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+    public void setTileOrder(TileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    public void setTileFocus(Point tileFocus) {
+        this.tileFocus = tileFocus;
+    }
+
+    public void setTilePublisher(Consumer<Rectangle> tilePublisher) {
+        this.tilePublisher = tilePublisher;
+    }
+
 }
@@ -0,0 +1,290 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless job that renders a small Julia set for every c value on a rectangular grid and reduces each one
+ * to a few numbers: the filled area (from pixelArea), the mean number of iterations taken by the points that
+ * escaped, and the box counting dimension of the boundary. The grid points are shared out between every core.
+ * Results are stored in a column file, which holds a header describing the sweep followed by one column for each
+ * measurement (every grid point's area, then every mean escape, then every dimension) and lastly a column that
+ * marks which points are finished. A point is only marked finished once its measurements have been written, so
+ * if a sweep is interrupted it can be run again with the same file and will carry on from where it stopped.
+ * Run with: java mandelbrot.JuliaSweep output.sweep realMin realMax imagMin imagMax columns rows [resolution] [maxIterations]
+ */
+
+public class JuliaSweep {
+
+    /**Identifies a column file and the version of its layout*/
+    private static final int MAGIC = 0x4A535750;
+    private static final int VERSION = 1;
+
+    /**Size of the header in bytes*/
+    private static final int HEADER_SIZE = 4 + 4 + 8 * 4 + 4 * 4 + 8;
+
+    /**Rectangle of c values and the number of grid points across and down it*/
+    private double realMin;
+    private double realMax;
+    private double imagMin;
+    private double imagMax;
+    private int columns;
+    private int rows;
+
+    /**Properties of the Julia set rendered at each grid point*/
+    private int resolution;
+    private int maxIterations;
+    private double power;
+
+    /**Number of worker threads*/
+    private int threads;
+
+    /**Measurements of each grid point, stored row by row*/
+    private int[] areas;
+    private float[] meanEscapes;
+    private float[] dimensions;
+    private boolean[] finished;
+
+    /**Number of grid points finished, including those finished before resuming*/
+    private AtomicInteger pointsCompleted;
+
+    /**Constructs a sweep over the given rectangle of c values*/
+    public JuliaSweep(double realMin, double realMax, double imagMin, double imagMax, int columns, int rows, int resolution, int maxIterations, double power) {
+
+        this.realMin = realMin;
+        this.realMax = realMax;
+        this.imagMin = imagMin;
+        this.imagMax = imagMax;
+        this.columns = columns;
+        this.rows = rows;
+        this.resolution = resolution;
+        this.maxIterations = maxIterations;
+        this.power = power;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.areas = new int[columns * rows];
+        this.meanEscapes = new float[columns * rows];
+        this.dimensions = new float[columns * rows];
+        this.finished = new boolean[columns * rows];
+        this.pointsCompleted = new AtomicInteger();
+
+    }
+
+    /**Renders every grid point not already finished in the file, writing the results as they are found*/
+    public void run(File file) throws IOException, InterruptedException {
+
+        try (RandomAccessFile columnFile = new RandomAccessFile(file, "rw")) {
+
+            if (columnFile.length() == 0) writeHeader(columnFile);
+            else readExisting(columnFile);
+
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+            for (int i = 0; i < finished.length; i++) {
+                if (finished[i]) continue;
+                final int index = i;
+                executor.execute(() -> {
+                    measure(index);
+                    try {
+                        writePoint(columnFile, index);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        }
+
+    }
+
+    /**Renders the Julia set of a single grid point and reduces it to its measurements*/
+    private void measure(int index) {
+
+        JuliaSet juliaSet = new JuliaSet();
+        juliaSet.setDimensions(new Dimension(resolution, resolution));
+        juliaSet.setMaxIterations(maxIterations);
+        juliaSet.setPower(power);
+        juliaSet.setChunkSize(1);
+        juliaSet.setZoom(resolution / 4.0);
+        juliaSet.setCentre(new ComplexNumber());
+        juliaSet.setC(getC(index % columns, index / columns));
+        juliaSet.iterate(false);
+
+        int[][] iterations = juliaSet.getIterations();
+        long escapedIterations = 0;
+        int escaped = 0;
+        for (int[] row: iterations) {
+            for (int count: row) {
+                if (count < maxIterations) {
+                    escapedIterations += count;
+                    escaped++;
+                }
+            }
+        }
+
+        areas[index] = juliaSet.getPixelArea();
+        meanEscapes[index] = escaped == 0 ? Float.NaN : (float)escapedIterations / escaped;
+        dimensions[index] = (float)estimateDimension(new BoxCounter(iterations, maxIterations, 1));
+
+    }
+
+    /**Fits the box counting dimension over box sizes from one pixel to an eighth of the image*/
+    private double estimateDimension(BoxCounter boxCounter) {
+
+        int points = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(resolution / 8, 1))) + 1;
+        double[] logOfSideLengths = new double[points];
+        double[] logOfNoBoxes = new double[points];
+        for (int i = 0; i < points; i++) {
+            int count = boxCounter.countBoxes(1 << i);
+            if (count == 0) return Double.NaN;
+            logOfSideLengths[i] = Math.log(1.0 / (1 << i));
+            logOfNoBoxes[i] = Math.log(count);
+        }
+        return points < 2 ? Double.NaN : new RegressionCalculator(logOfSideLengths, logOfNoBoxes).calculateGradient();
+
+    }
+
+    /**Returns the c value at a grid point, with rows running from the top of the rectangle down*/
+    public ComplexNumber getC(int column, int row) {
+
+        double real = columns == 1 ? realMin : realMin + (realMax - realMin) * column / (columns - 1);
+        double imaginary = rows == 1 ? imagMax : imagMax - (imagMax - imagMin) * row / (rows - 1);
+        return new ComplexNumber(real, imaginary);
+
+    }
+
+    /**Writes the header and sizes the file to hold every column*/
+    private void writeHeader(RandomAccessFile columnFile) throws IOException {
+
+        columnFile.writeInt(MAGIC);
+        columnFile.writeInt(VERSION);
+        columnFile.writeDouble(realMin);
+        columnFile.writeDouble(realMax);
+        columnFile.writeDouble(imagMin);
+        columnFile.writeDouble(imagMax);
+        columnFile.writeInt(columns);
+        columnFile.writeInt(rows);
+        columnFile.writeInt(resolution);
+        columnFile.writeInt(maxIterations);
+        columnFile.writeDouble(power);
+        columnFile.setLength(HEADER_SIZE + (long)finished.length * (4 + 4 + 4 + 1));
+
+    }
+
+    /**Checks that an existing file is for the same sweep, then loads the points it has finished*/
+    private void readExisting(RandomAccessFile columnFile) throws IOException {
+
+        columnFile.seek(0);
+        if (columnFile.readInt() != MAGIC || columnFile.readInt() != VERSION
+                || columnFile.readDouble() != realMin || columnFile.readDouble() != realMax
+                || columnFile.readDouble() != imagMin || columnFile.readDouble() != imagMax
+                || columnFile.readInt() != columns || columnFile.readInt() != rows
+                || columnFile.readInt() != resolution || columnFile.readInt() != maxIterations
+                || columnFile.readDouble() != power) {
+            throw new IOException("File belongs to a different sweep");
+        }
+
+        int points = finished.length;
+        byte[] finishedColumn = new byte[points];
+        columnFile.seek(columnOffset(3));
+        columnFile.readFully(finishedColumn);
+        for (int i = 0; i < points; i++) {
+            if (finishedColumn[i] == 0) continue;
+            finished[i] = true;
+            columnFile.seek(columnOffset(0) + 4L * i);
+            areas[i] = columnFile.readInt();
+            columnFile.seek(columnOffset(1) + 4L * i);
+            meanEscapes[i] = columnFile.readFloat();
+            columnFile.seek(columnOffset(2) + 4L * i);
+            dimensions[i] = columnFile.readFloat();
+            pointsCompleted.incrementAndGet();
+        }
+
+    }
+
+    /**Writes a grid point's measurements into each column, marking it finished last*/
+    private void writePoint(RandomAccessFile columnFile, int index) throws IOException {
+
+        synchronized (columnFile) {
+            columnFile.seek(columnOffset(0) + 4L * index);
+            columnFile.writeInt(areas[index]);
+            columnFile.seek(columnOffset(1) + 4L * index);
+            columnFile.writeFloat(meanEscapes[index]);
+            columnFile.seek(columnOffset(2) + 4L * index);
+            columnFile.writeFloat(dimensions[index]);
+            columnFile.seek(columnOffset(3) + index);
+            columnFile.writeByte(1);
+        }
+        finished[index] = true;
+        pointsCompleted.incrementAndGet();
+
+    }
+
+    /**Returns the position in the file of the start of a column (area, mean escape, dimension, finished)*/
+    private long columnOffset(int column) {
+
+        return HEADER_SIZE + (long)finished.length * 4 * Math.min(column, 3);
+
+    }
+
+    public int[] getAreas() {
+        return areas;
+    }
+
+    public float[] getMeanEscapes() {
+        return meanEscapes;
+    }
+
+    public float[] getDimensions() {
+        return dimensions;
+    }
+
+    public int getPointsCompleted() {
+        return pointsCompleted.get();
+    }
+
+    public int getPointCount() {
+        return finished.length;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        if (args.length < 7) {
+            System.out.println("Usage: java mandelbrot.JuliaSweep output.sweep realMin realMax imagMin imagMax columns rows [resolution] [maxIterations]");
+            return;
+        }
+
+        int resolution = args.length > 7 ? Integer.parseInt(args[7]) : 128;
+        int maxIterations = args.length > 8 ? Integer.parseInt(args[8]) : 256;
+        JuliaSweep sweep = new JuliaSweep(Double.parseDouble(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3]),
+                Double.parseDouble(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]), resolution, maxIterations, 2);
+        sweep.setThreads(PerformanceProfile.current().getThreads());
+
+        Thread progress = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(10_000);
+                    System.out.println(sweep.getPointsCompleted() + " / " + sweep.getPointCount() + " points");
+                }
+            } catch (InterruptedException ignored) {
+            }
+        });
+        progress.setDaemon(true);
+        progress.start();
+
+        long start = System.nanoTime();
+        sweep.run(new File(args[0]));
+        System.out.println("Finished " + sweep.getPointCount() + " points in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+    }
+
+}
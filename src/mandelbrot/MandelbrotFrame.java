@@ -20,6 +20,12 @@ public class MandelbrotFrame extends JFrame {
     static final Font headerFont = new Font(Font.DIALOG, Font.BOLD, 14);
     static final Font normalFont = new Font(Font.DIALOG, Font.PLAIN, 14);
 
+    /**Milliseconds without interaction before the images start being refined*/
+    private static final int IDLE_DELAY = 500;
+
+    /**Milliseconds without interaction before low resolution frames are refined back to full resolution*/
+    private static final int SETTLE_DELAY = 150;
+
     /**Mandelbrot set object that will be drawn*/
     MandelbrotSet mandelbrotSet;
 
@@ -34,6 +40,8 @@ public class MandelbrotFrame extends JFrame {
     private JMenuItem loadItem;
     private JMenuItem saveItem;
     private JMenuItem screenShotItem;
+    private JMenuItem juliaMorphItem;
+    private JCheckBoxMenuItem recordInteractionsItem;
     private JMenuItem quitItem;
 
     /**Options menu components*/
@@ -43,9 +51,23 @@ public class MandelbrotFrame extends JFrame {
     JCheckBoxMenuItem juliaButton;
     private JMenuItem resetItem;
     private JMenuItem settingsItem;
+    private JMenuItem formulaItem;
+    private JMenuItem estimateDimensionItem;
+    private JMenuItem estimateAreaItem;
+    private JMenuItem orbitDensityItem;
     private JCheckBoxMenuItem drawInfoItem;
     private JCheckBoxMenuItem drawCoordsItem;
+    private JCheckBoxMenuItem drawMetricsItem;
     private JCheckBoxMenuItem drawSuccessRefineItem;
+    private JCheckBoxMenuItem inverseIterationItem;
+    private JCheckBoxMenuItem distanceEstimationItem;
+    private JCheckBoxMenuItem antiAliasItem;
+    private JCheckBoxMenuItem idleRefinementItem;
+    private JCheckBoxMenuItem dynamicResolutionItem;
+    private JCheckBoxMenuItem previewItem;
+    private JCheckBoxMenuItem juliaHoverItem;
+    private JCheckBoxMenuItem autoIterationsItem;
+    private JMenu tileOrderMenu;
     private SettingsFrame settingsFrame;
 
     /**Colour menu components*/
@@ -55,6 +77,8 @@ public class MandelbrotFrame extends JFrame {
     private JMenuItem innerItem;
     private JCheckBoxMenuItem paletteItem;
     private JCheckBoxMenuItem histogramItem;
+    private JCheckBoxMenuItem iterationHeatmapItem;
+    private JCheckBoxMenuItem timeHeatmapItem;
 
     /**Help menu components*/
     private JMenuItem helpMenu;
@@ -79,6 +103,26 @@ public class MandelbrotFrame extends JFrame {
     private Thread successiveRefiner;
     int successiveRefinementOption;
 
+    /**Timer that starts refining the images once the user has stopped interacting*/
+    private Timer idleTimer;
+
+    /**Chooses the resolution of frames drawn during interaction, and the timer that refines them once input settles*/
+    private DynamicResolution dynamicResolution;
+    private Timer settleTimer;
+
+    /**Renders the Julia set of the point under the cursor, null when the cursor is not hovering over the Mandelbrot set*/
+    private JuliaHoverPreview juliaHoverPreview;
+
+    /**Order that the tiles of the images are iterated in, and when finished tiles were last shown*/
+    private TileOrder tileOrder = TileOrder.ROWS;
+    private long lastTilePublished;
+
+    /**Counts the passes started, so that images posted to the event dispatch thread by a cancelled pass are ignored*/
+    private volatile int renderGeneration;
+
+    /**Records mouse events for later replay, null when not recording*/
+    InteractionRecorder interactionRecorder;
+
     /**Constructs a default MandelbrotFrame with max screen size*/
     public MandelbrotFrame() {
 
@@ -93,12 +137,19 @@ public class MandelbrotFrame extends JFrame {
         this.setResizable(true);
 
         this.setupComponents();
+        PerformanceProfile.addCalibrationListener(() -> SwingUtilities.invokeLater(this::applyPerformanceProfile));
         this.createSet();
         this.fractalContainer.setupFractalImages(mandelbrotSet);
         this.fractalContainer.conditions.readyToCreateImage = true;
         this.fractalContainer.conditions.readyToColourPalette = true;
+        this.fractalContainer.conditions.readyToRecordPreview = true;
         this.successiveRefinementOption = 1;
         this.successiveRefiner = new Thread(new SuccessiveRefiner(this));
+        this.idleTimer = new Timer(IDLE_DELAY, ae -> startIdleRefinement());
+        this.idleTimer.setRepeats(false);
+        this.dynamicResolution = new DynamicResolution(DynamicResolution.TARGET_FRAME_TIME);
+        this.settleTimer = new Timer(SETTLE_DELAY, ae -> refineToFullResolution());
+        this.settleTimer.setRepeats(false);
         this.setVisible(true);
 
     }
@@ -128,6 +179,8 @@ public class MandelbrotFrame extends JFrame {
         loadItem = new JMenuItem("Load from file");
         saveItem = new JMenuItem("Save to file");
         screenShotItem = new JMenuItem("Save screenshot");
+        juliaMorphItem = new JMenuItem("Export Julia morph");
+        recordInteractionsItem = new JCheckBoxMenuItem("Record interactions", false);
         quitItem = new JMenuItem(("Quit program"));
 
         optionsMenu = new JMenu("Options");
@@ -139,9 +192,25 @@ public class MandelbrotFrame extends JFrame {
         juliaButton = new JCheckBoxMenuItem("Julia set", true);
         resetItem = new JMenuItem("Reset values");
         settingsItem = new JMenuItem("Edit fractal settings");
+        formulaItem = new JMenuItem("Edit iteration formula");
+        estimateDimensionItem = new JMenuItem("Estimate dimension at high resolution");
+        estimateAreaItem = new JMenuItem("Estimate area of view");
+        orbitDensityItem = new JMenuItem("Render orbit density (Buddhabrot)");
         drawInfoItem = new JCheckBoxMenuItem("Draw information", false);
         drawCoordsItem = new JCheckBoxMenuItem("Draw coordinates when tracking", false);
+        drawMetricsItem = new JCheckBoxMenuItem("Draw render metrics with information", false);
         drawSuccessRefineItem = new JCheckBoxMenuItem("Draw with successive refinement active", false);
+        inverseIterationItem = new JCheckBoxMenuItem("Trace Julia boundaries by inverse iteration", false);
+        distanceEstimationItem = new JCheckBoxMenuItem("Skip exterior discs by distance estimation", false);
+        antiAliasItem = new JCheckBoxMenuItem("Anti-alias edges", false);
+        idleRefinementItem = new JCheckBoxMenuItem("Refine images while idle", false);
+        dynamicResolutionItem = new JCheckBoxMenuItem("Lower resolution while interacting", false);
+        previewItem = new JCheckBoxMenuItem("Preview new views from earlier images", false);
+        juliaHoverItem = new JCheckBoxMenuItem("Preview Julia sets under the cursor", false);
+        autoIterationsItem = new JCheckBoxMenuItem("Choose max iterations automatically", false);
+        tileOrderMenu = new JMenu("Tile order");
+        tileOrderMenu.setOpaque(true);
+        tileOrderMenu.setBackground(Color.white);
 
         colourMenu = new JMenu("Colours");
         colourMenu.setFont(MandelbrotFrame.headerFont);
@@ -150,6 +219,8 @@ public class MandelbrotFrame extends JFrame {
         innerItem = new JMenuItem("Edit inner colour");
         paletteItem = new JCheckBoxMenuItem("Use colour palette", true);
         histogramItem = new JCheckBoxMenuItem("Use histogram colouring", false);
+        iterationHeatmapItem = new JCheckBoxMenuItem("Show iteration cost heatmap", false);
+        timeHeatmapItem = new JCheckBoxMenuItem("Show time cost heatmap", false);
 
         helpMenu = new JMenuItem("Help");
         helpMenu.setFont(MandelbrotFrame.headerFont);
@@ -181,12 +252,16 @@ public class MandelbrotFrame extends JFrame {
         fileMenu.add(loadItem);
         fileMenu.add(saveItem);
         fileMenu.add(screenShotItem);
+        fileMenu.add(juliaMorphItem);
+        fileMenu.add(recordInteractionsItem);
         fileMenu.add(quitItem);
         setAllMenuItemsColour(fileMenu, Color.white);
 
         loadItem.addActionListener(ae ->  PopupManager.loadValues(this));
         saveItem.addActionListener(ae -> PopupManager.saveValues(this));
         screenShotItem.addActionListener(ae -> PopupManager.saveScreenShot(this));
+        juliaMorphItem.addActionListener(ae -> PopupManager.exportJuliaMorph(this));
+        recordInteractionsItem.addActionListener(ae -> editRecordInteractions());
         quitItem.addActionListener(ae -> System.exit(0));
 
         optionsMenu.add(fractalChoiceMenu);
@@ -196,9 +271,24 @@ public class MandelbrotFrame extends JFrame {
 
         optionsMenu.add(resetItem);
         optionsMenu.add(settingsItem);
+        optionsMenu.add(formulaItem);
+        optionsMenu.add(estimateDimensionItem);
+        optionsMenu.add(estimateAreaItem);
+        optionsMenu.add(orbitDensityItem);
         optionsMenu.add(drawInfoItem);
         optionsMenu.add(drawCoordsItem);
+        optionsMenu.add(drawMetricsItem);
         optionsMenu.add(drawSuccessRefineItem);
+        optionsMenu.add(inverseIterationItem);
+        optionsMenu.add(distanceEstimationItem);
+        optionsMenu.add(antiAliasItem);
+        optionsMenu.add(idleRefinementItem);
+        optionsMenu.add(dynamicResolutionItem);
+        optionsMenu.add(previewItem);
+        optionsMenu.add(juliaHoverItem);
+        optionsMenu.add(autoIterationsItem);
+        optionsMenu.add(tileOrderMenu);
+        addTileOrderItems();
         setAllMenuItemsColour(optionsMenu, Color.white);
 
         mandelbrotButton.addActionListener(this::changeFractalConditions);
@@ -208,15 +298,30 @@ public class MandelbrotFrame extends JFrame {
             if (settingsFrame != null) settingsFrame.dispose();
             settingsFrame = new SettingsFrame(this);
         });
+        formulaItem.addActionListener(ae -> PopupManager.editFormula(this));
+        estimateDimensionItem.addActionListener(ae -> PopupManager.estimateDimension(this));
+        estimateAreaItem.addActionListener(ae -> PopupManager.estimateArea(this));
+        orbitDensityItem.addActionListener(ae -> PopupManager.renderOrbitDensity(this));
         drawInfoItem.addActionListener(ae -> editDrawInfo());
         drawCoordsItem.addActionListener(ae -> editDrawCoords());
+        drawMetricsItem.addActionListener(ae -> editDrawMetrics());
         drawSuccessRefineItem.addActionListener(ae -> editDrawSuccessRefine());
+        inverseIterationItem.addActionListener(ae -> editInverseIteration());
+        distanceEstimationItem.addActionListener(ae -> editDistanceEstimation());
+        antiAliasItem.addActionListener(ae -> editAntiAlias());
+        idleRefinementItem.addActionListener(ae -> editIdleRefinement());
+        dynamicResolutionItem.addActionListener(ae -> editDynamicResolution());
+        previewItem.addActionListener(ae -> editPreview());
+        juliaHoverItem.addActionListener(ae -> editJuliaHover());
+        autoIterationsItem.addActionListener(ae -> editAutoIterations());
 
         colourMenu.add(outerItem);
         colourMenu.add(edgeItem);
         colourMenu.add(innerItem);
         colourMenu.add(paletteItem);
         colourMenu.add(histogramItem);
+        colourMenu.add(iterationHeatmapItem);
+        colourMenu.add(timeHeatmapItem);
         setAllMenuItemsColour(colourMenu, Color.white);
 
         outerItem.addActionListener(ae -> PopupManager.editColour(this,"outer"));
@@ -224,6 +329,8 @@ public class MandelbrotFrame extends JFrame {
         innerItem.addActionListener(ae -> PopupManager.editColour(this, "inner"));
         paletteItem.addActionListener(ae -> editUsePalette());
         histogramItem.addActionListener(ae -> editUseHistogram());
+        iterationHeatmapItem.addActionListener(ae -> editCostHeatmap(iterationHeatmapItem));
+        timeHeatmapItem.addActionListener(ae -> editCostHeatmap(timeHeatmapItem));
 
         helpMenu.addActionListener(ae -> {
             if (helpFrame != null) helpFrame.dispose();
@@ -275,7 +382,22 @@ public class MandelbrotFrame extends JFrame {
 
     }
 
-    /**Creates a MandelbrotSet object with the default properties*/
+    /**Adds an item to the tile order menu for each order, with the current order selected*/
+    private void addTileOrderItems() {
+
+        ButtonGroup group = new ButtonGroup();
+        String[] names = {"Rows from the top", "Centre out", "Hilbert curve", "Out from the cursor"};
+        for (TileOrder order: TileOrder.values()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(names[order.ordinal()], order == tileOrder);
+            item.addActionListener(ae -> editTileOrder(order));
+            group.add(item);
+            tileOrderMenu.add(item);
+        }
+        setAllMenuItemsColour(tileOrderMenu, Color.white);
+
+    }
+
+    /**Creates a MandelbrotSet object with the default properties, iterating it once the profile and options are applied*/
     public void createSet() {
 
         if (fractalContainer.conditions.drawMandelbrot && fractalContainer.conditions.drawJulia) {
@@ -284,6 +406,19 @@ public class MandelbrotFrame extends JFrame {
         else {
             mandelbrotSet = new MandelbrotSet(fractalContainer.getWidth(), fractalContainer.getHeight(), 100, 2, true);
         }
+        applyPerformanceProfile();
+        mandelbrotSet.setDistanceEstimation(fractalContainer.conditions.readyToUseDistanceEstimation);
+        mandelbrotSet.juliaSet.setDistanceEstimation(fractalContainer.conditions.readyToUseDistanceEstimation);
+        mandelbrotSet.setSupersampling(fractalContainer.conditions.readyToAntiAlias ? EdgeSupersampler.DEFAULT_GRID : 0);
+        mandelbrotSet.juliaSet.setSupersampling(fractalContainer.conditions.readyToAntiAlias ? EdgeSupersampler.DEFAULT_GRID : 0);
+        mandelbrotSet.setMetrics(RenderMetrics.forType(FractalType.MANDELBROT));
+        mandelbrotSet.juliaSet.setMetrics(RenderMetrics.forType(FractalType.JULIA));
+        mandelbrotSet.setTileOrder(tileOrder);
+        mandelbrotSet.juliaSet.setTileOrder(tileOrder);
+        mandelbrotSet.iterate(false);
+        mandelbrotSet.juliaSet.iterate(false);
+        mandelbrotSet.setTilePublisher(bounds -> publishTile(fractalContainer.mandelbrotDiagram, bounds));
+        mandelbrotSet.juliaSet.setTilePublisher(bounds -> publishTile(fractalContainer.juliaDiagram, bounds));
 
         fractalContainer.conditions.readyToCreateImage = true;
 
@@ -292,11 +427,6 @@ public class MandelbrotFrame extends JFrame {
     /**Iterate using the SuccessiveRefiner runnable to allow for the resolution to build up over time*/
     private void successivelyRefine() {
 
-        try {
-            successiveRefiner.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
         successiveRefiner = new Thread(new SuccessiveRefiner(this));
         successiveRefiner.start();
         try {
@@ -397,6 +527,210 @@ public class MandelbrotFrame extends JFrame {
 
     }
 
+    /**Changes whether or not to draw the render metrics below the information*/
+    private void editDrawMetrics() {
+
+        fractalContainer.conditions.readyToDrawMetrics = drawMetricsItem.getState();
+        draw();
+
+    }
+
+    /**Changes whether box counting traces Julia set boundaries by inverse iteration*/
+    private void editInverseIteration() {
+
+        fractalContainer.conditions.readyToUseInverseIteration = inverseIterationItem.getState();
+
+    }
+
+    /**Changes whether pixels far outside the set are filled from distance estimates, and redraws with it*/
+    private void editDistanceEstimation() {
+
+        fractalContainer.conditions.readyToUseDistanceEstimation = distanceEstimationItem.getState();
+        mandelbrotSet.setDistanceEstimation(distanceEstimationItem.getState());
+        mandelbrotSet.juliaSet.setDistanceEstimation(distanceEstimationItem.getState());
+        iterateAndDraw();
+
+    }
+
+    /**Changes whether the pixels on edges are supersampled, and redraws with it*/
+    private void editAntiAlias() {
+
+        fractalContainer.conditions.readyToAntiAlias = antiAliasItem.getState();
+        int supersampling = antiAliasItem.getState() ? EdgeSupersampler.DEFAULT_GRID : 0;
+        mandelbrotSet.setSupersampling(supersampling);
+        mandelbrotSet.juliaSet.setSupersampling(supersampling);
+        iterateAndDraw();
+
+    }
+
+    /**Changes whether the images keep being refined with jittered samples while the user is idle*/
+    private void editIdleRefinement() {
+
+        fractalContainer.conditions.readyToRefineWhileIdle = idleRefinementItem.getState();
+        stopIdleRefinement();
+
+    }
+
+    /**Changes whether frames are drawn at a lower resolution while the user drags or zooms*/
+    private void editDynamicResolution() {
+
+        fractalContainer.conditions.readyToUseDynamicResolution = dynamicResolutionItem.getState();
+
+    }
+
+    /**Changes whether new views are previewed from earlier images while they are rendered, forgetting the images when off*/
+    private void editPreview() {
+
+        fractalContainer.conditions.readyToPreview = previewItem.getState();
+        if (!previewItem.getState()) {
+            fractalContainer.mandelbrotDiagram.clearPreviews();
+            fractalContainer.juliaDiagram.clearPreviews();
+        }
+
+    }
+
+    /**Changes whether the Julia set of the point under the cursor is shown while hovering over the Mandelbrot set*/
+    private void editJuliaHover() {
+
+        fractalContainer.conditions.readyToPreviewJuliaOnHover = juliaHoverItem.getState();
+        if (!juliaHoverItem.getState()) stopJuliaHover();
+
+    }
+
+    /**Changes the order that the tiles of the images are iterated in, and redraws with it*/
+    private void editTileOrder(TileOrder tileOrder) {
+
+        this.tileOrder = tileOrder;
+        mandelbrotSet.setTileOrder(tileOrder);
+        mandelbrotSet.juliaSet.setTileOrder(tileOrder);
+        iterateAndDraw();
+
+    }
+
+    /**
+     * Shows a tile finished while the images are iterated away from the event dispatch thread. The tiles are coloured
+     * over the image onscreen, such as a preview of the new view, on the event dispatch thread at most once a frame
+     * so that colouring them does not hold up the iteration. The images still hold parts of the last view, so they
+     * are kept out of the previews until a pass finishes
+     */
+    private void publishTile(ArgandDiagram diagram, Rectangle bounds) {
+
+        if (SwingUtilities.isEventDispatchThread()) return;
+        diagram.addFinishedTile(bounds);
+        long now = System.nanoTime();
+        if (now - lastTilePublished < DynamicResolution.TARGET_FRAME_TIME) return;
+        lastTilePublished = now;
+        int generation = renderGeneration;
+        SwingUtilities.invokeLater(() -> {
+            if (generation != renderGeneration) return;
+            fractalContainer.conditions.readyToRecordPreview = false;
+            fractalContainer.mandelbrotDiagram.colourFinishedTiles();
+            fractalContainer.juliaDiagram.colourFinishedTiles();
+        });
+
+    }
+
+    /**
+     * Draws the images once a pass on the refiner thread has finished. The drawing conditions and the repaint list
+     * are shared with paintComponent, so they are only changed on the event dispatch thread
+     */
+    public void drawFinishedPass() {
+
+        int generation = renderGeneration;
+        SwingUtilities.invokeLater(() -> {
+            if (generation != renderGeneration) return;
+            fractalContainer.conditions.readyToRecordPreview = true;
+            fractalContainer.conditions.readyToCreateImage = true;
+            draw();
+        });
+
+    }
+
+    /**Changes whether the max iterations are chosen from a sample of each new view, and redraws with it*/
+    private void editAutoIterations() {
+
+        fractalContainer.conditions.readyToAutoIterate = autoIterationsItem.getState();
+        if (autoIterationsItem.getState()) iterateAndDraw();
+
+    }
+
+    /**
+     * Sets the max iterations of both fractals to the smallest that resolves the views onscreen, and moves the slider
+     * to it, returning whether the max iterations changed
+     */
+    private boolean estimateMaxIterations() {
+
+        int newMaxIterations = 0;
+        if (fractalContainer.conditions.drawMandelbrot) {
+            newMaxIterations = new IterationEstimator(mandelbrotSet).estimate();
+        }
+        if (fractalContainer.conditions.drawJulia) {
+            newMaxIterations = Math.max(newMaxIterations, new IterationEstimator(mandelbrotSet.juliaSet).estimate());
+        }
+        if (newMaxIterations == 0 || newMaxIterations == mandelbrotSet.getMaxIterations()) return false;
+        mandelbrotSet.setMaxIterations(newMaxIterations);
+        mandelbrotSet.juliaSet.setMaxIterations(newMaxIterations);
+        adjustSlider(newMaxIterations);
+        maxIterationsLabel.setText("Max iterations: " + newMaxIterations);
+        return true;
+
+    }
+
+    /**Shows the Julia set of a point that the cursor is hovering over, starting a preview if there is not one*/
+    public void hoverJulia(ComplexNumber c) {
+
+        if (!fractalContainer.conditions.readyToPreviewJuliaOnHover || !fractalContainer.conditions.drawJulia) return;
+        if (juliaHoverPreview == null) {
+            juliaHoverPreview = new JuliaHoverPreview(fractalContainer.juliaDiagram, mandelbrotSet.juliaSet, (int)chunkSpinner.getValue());
+            juliaHoverPreview.start();
+        }
+        juliaHoverPreview.follow(c);
+
+    }
+
+    /**Stops previewing Julia sets under the cursor and shows the real Julia set again*/
+    public void stopJuliaHover() {
+
+        if (juliaHoverPreview == null) return;
+        juliaHoverPreview.stop();
+        juliaHoverPreview = null;
+
+    }
+
+    /**Pauses the refinement of the images, which resumes once there has been no interaction for a while*/
+    public void stopIdleRefinement() {
+
+        fractalContainer.mandelbrotDiagram.stopAccumulating();
+        fractalContainer.juliaDiagram.stopAccumulating();
+        if (fractalContainer.conditions.readyToRefineWhileIdle) idleTimer.restart();
+        else idleTimer.stop();
+
+    }
+
+    /**Uses the kernel precision and tile size of the current profile for the sets, which the next iteration picks up*/
+    private void applyPerformanceProfile() {
+
+        PerformanceProfile profile = PerformanceProfile.current();
+        mandelbrotSet.setSinglePrecisionAllowed(profile.isSinglePrecision());
+        mandelbrotSet.juliaSet.setSinglePrecisionAllowed(profile.isSinglePrecision());
+        mandelbrotSet.setTileSize(profile.getTileSize());
+        mandelbrotSet.juliaSet.setTileSize(profile.getTileSize());
+
+    }
+
+    /**Starts refining the images that are shown, waiting longer if they are still being successively refined*/
+    private void startIdleRefinement() {
+
+        if (successiveRefiner.isAlive()) {
+            idleTimer.restart();
+            return;
+        }
+        int threads = PerformanceProfile.current().getThreads();
+        if (fractalContainer.conditions.drawMandelbrot) fractalContainer.mandelbrotDiagram.startAccumulating(threads);
+        if (fractalContainer.conditions.drawJulia) fractalContainer.juliaDiagram.startAccumulating(threads);
+
+    }
+
     /**Changes whether or not to use HSV colour scaling*/
     private void editUsePalette() {
 
@@ -414,6 +748,37 @@ public class MandelbrotFrame extends JFrame {
         draw();
     }
 
+    /**Starts recording mouse events, or stops and asks where to save the recording*/
+    private void editRecordInteractions() {
+
+        if (recordInteractionsItem.getState()) {
+            interactionRecorder = new InteractionRecorder(mandelbrotSet, fractalContainer.conditions, fractalContainer.colours, successiveRefinementOption);
+        }
+        else if (interactionRecorder != null) {
+            InteractionRecorder finished = interactionRecorder;
+            interactionRecorder = null;
+            PopupManager.saveInteractionRecording(this, finished);
+        }
+
+    }
+
+    /**Switches between the cost heatmaps and normal colouring, re-iterating so that the cost of every pixel is known*/
+    private void editCostHeatmap(JCheckBoxMenuItem source) {
+
+        if (source == iterationHeatmapItem && iterationHeatmapItem.getState()) timeHeatmapItem.setState(false);
+        if (source == timeHeatmapItem && timeHeatmapItem.getState()) iterationHeatmapItem.setState(false);
+        fractalContainer.conditions.readyToDrawIterationHeatmap = iterationHeatmapItem.getState();
+        fractalContainer.conditions.readyToDrawTimeHeatmap = timeHeatmapItem.getState();
+
+        boolean recordingCosts = iterationHeatmapItem.getState() || timeHeatmapItem.getState();
+        mandelbrotSet.setRecordingCosts(recordingCosts);
+        mandelbrotSet.juliaSet.setRecordingCosts(recordingCosts);
+        if (recordingCosts) calculateIterations();
+        fractalContainer.conditions.readyToCreateImage = true;
+        draw();
+
+    }
+
     /**Changes whether or not to successively refine on iteration*/
     private void editDrawSuccessRefine() {
 
@@ -510,12 +875,40 @@ public class MandelbrotFrame extends JFrame {
 
     }
 
-    /**Either successively refines or iterates normally*/
+    /**Paints previews of the new views of the images onscreen before they are iterated*/
+    public void showPreviews() {
+
+        if (fractalContainer.conditions.drawMandelbrot) fractalContainer.mandelbrotDiagram.showPreview();
+        if (fractalContainer.conditions.drawJulia) fractalContainer.juliaDiagram.showPreview();
+
+    }
+
+    /**Either successively refines, iterates in a single pass on the refiner thread so that tiles are shown as they finish, or iterates normally*/
     public void iterateAndDraw() {
 
+        iterateAndDraw(true);
+
+    }
+
+    /**Iterates and draws, first choosing the max iterations for the new view if asked to and automatic iterations are on*/
+    private void iterateAndDraw(boolean estimate) {
+
+        cancelRefinement();
+        if (settleTimer.isRunning()) {
+            settleTimer.stop();
+            mandelbrotSet.setChunkSize((int)chunkSpinner.getValue());
+            mandelbrotSet.juliaSet.setChunkSize((int)chunkSpinner.getValue());
+        }
+        if (estimate && fractalContainer.conditions.readyToAutoIterate) estimateMaxIterations();
         if (this.successiveRefinementOption > 1) {
             this.successivelyRefine();
         }
+        else if (tileOrder != TileOrder.ROWS) {
+            mandelbrotSet.setPixelArea(0);
+            mandelbrotSet.juliaSet.setPixelArea(0);
+            successiveRefiner = new Thread(new SuccessiveRefiner(this, (int)chunkSpinner.getValue(), (int)chunkSpinner.getValue()));
+            successiveRefiner.start();
+        }
         else {
             this.calculateIterations();
             this.draw();
@@ -526,20 +919,112 @@ public class MandelbrotFrame extends JFrame {
     /**Iterates normally*/
     private void calculateIterations() {
 
+        long start = System.nanoTime();
         if (fractalContainer.conditions.drawMandelbrot) {
             mandelbrotSet.iterate(false);
         }
         if (fractalContainer.conditions.drawJulia) {
             mandelbrotSet.juliaSet.iterate(false);
         }
+        dynamicResolution.recordFrame(System.nanoTime() - start, countVisiblePixels(mandelbrotSet.getChunkSize()));
+        fractalContainer.conditions.readyToRecordPreview = true;
         fractalContainer.conditions.readyToCreateImage = true;
 
     }
 
+    /**
+     * Iterates and draws a frame while the user drags or zooms. With dynamic resolution on, the frame is drawn at the
+     * finest chunk size that keeps up with the target frame time, and is refined once the input has settled
+     */
+    public void interactiveIterateAndDraw() {
+
+        if (!fractalContainer.conditions.readyToUseDynamicResolution) {
+            iterateAndDraw();
+            return;
+        }
+
+        cancelRefinement();
+        int width = (fractalContainer.conditions.drawMandelbrot ? mandelbrotSet.getIterations()[0].length : 0)
+                + (fractalContainer.conditions.drawJulia ? mandelbrotSet.juliaSet.getIterations()[0].length : 0);
+        int chunkSize = dynamicResolution.chooseChunkSize(width, mandelbrotSet.getIterations().length, (int)chunkSpinner.getValue());
+        mandelbrotSet.setChunkSize(chunkSize);
+        mandelbrotSet.juliaSet.setChunkSize(chunkSize);
+        mandelbrotSet.resetRefined();
+        mandelbrotSet.juliaSet.resetRefined();
+        mandelbrotSet.setPixelArea(0);
+        mandelbrotSet.juliaSet.setPixelArea(0);
+
+        long start = System.nanoTime();
+        if (fractalContainer.conditions.drawMandelbrot) mandelbrotSet.iterate(true);
+        if (fractalContainer.conditions.drawJulia) mandelbrotSet.juliaSet.iterate(true);
+        dynamicResolution.recordFrame(System.nanoTime() - start, countVisiblePixels(chunkSize));
+        fractalContainer.conditions.readyToRecordPreview = true;
+        fractalContainer.conditions.readyToCreateImage = true;
+        draw();
+        settleTimer.restart();
+
+    }
+
+    /**
+     * Successively refines the last interactive frame from its chunk size down to the chosen chunk size. With automatic
+     * iterations on, the max iterations are chosen for the settled view first, and if they change the frame cannot be
+     * refined from and the images are iterated again from scratch
+     */
+    private void refineToFullResolution() {
+
+        int baseChunkSize = (int)chunkSpinner.getValue();
+        if (fractalContainer.conditions.readyToAutoIterate && estimateMaxIterations()) {
+            mandelbrotSet.setChunkSize(baseChunkSize);
+            mandelbrotSet.juliaSet.setChunkSize(baseChunkSize);
+            mandelbrotSet.resetRefined();
+            mandelbrotSet.juliaSet.resetRefined();
+            iterateAndDraw(false);
+            return;
+        }
+        if (mandelbrotSet.getChunkSize() <= baseChunkSize) {
+            mandelbrotSet.resetRefined();
+            mandelbrotSet.juliaSet.resetRefined();
+            return;
+        }
+        successiveRefiner = new Thread(new SuccessiveRefiner(this, mandelbrotSet.getChunkSize() / 2, baseChunkSize));
+        successiveRefiner.start();
+
+    }
+
+    /**Interrupts any successive refinement in progress, waits for it to stop and drops anything it has yet to show*/
+    private void cancelRefinement() {
+
+        successiveRefiner.interrupt();
+        try {
+            successiveRefiner.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        renderGeneration++;
+        fractalContainer.mandelbrotDiagram.clearFinishedTiles();
+        fractalContainer.juliaDiagram.clearFinishedTiles();
+
+    }
+
+    /**Returns the number of pixels iterated in the images onscreen at a chunk size*/
+    private long countVisiblePixels(int chunkSize) {
+
+        long pixels = 0;
+        if (fractalContainer.conditions.drawMandelbrot) {
+            pixels += DynamicResolution.countPixels(mandelbrotSet.getIterations()[0].length, mandelbrotSet.getIterations().length, chunkSize);
+        }
+        if (fractalContainer.conditions.drawJulia) {
+            pixels += DynamicResolution.countPixels(mandelbrotSet.juliaSet.getIterations()[0].length, mandelbrotSet.juliaSet.getIterations().length, chunkSize);
+        }
+        return pixels;
+
+    }
+
     /**Shortened method name for repainting graphics component*/
     public void draw() {
 
         fractalContainer.drawImages();
+        if (fractalContainer.conditions.readyToRefineWhileIdle) idleTimer.restart();
 
     }
 
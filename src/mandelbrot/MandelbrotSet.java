@@ -1,6 +1,7 @@
 package mandelbrot;
 
 import java.awt.*;
+import java.util.function.Consumer;
 
 /**
  * The backbone of the program that contains and deals with the complex number maths
@@ -37,6 +38,15 @@ public class MandelbrotSet implements FractalSet {
     /**Measure of effective resolution of the MandelbrotSet*/
     private int chunkSize;
 
+    /**Number of iterations executed and pixels skipped by shortcuts during the current pass*/
+    private long iterationsExecuted;
+    private long pixelsSkipped;
+
+    /**Whether the cost of each pixel is being recorded, and the iterations and nanoseconds that each pixel cost*/
+    private boolean recordingCosts;
+    private int[][] iterationCosts;
+    private int[][] timeCosts;
+
     /**Total number of pixels within the MandelbrotSet*/
     private int pixelArea;
 
@@ -51,6 +61,30 @@ public class MandelbrotSet implements FractalSet {
 
     private ComplexNumber c = new ComplexNumber();
 
+    /**User defined formula that replaces z^power + c when set, and the last result of the formula or single precision kernel*/
+    private Formula formula;
+    private final double[] formulaResult = new double[2];
+
+    /**Whether single precision may be used at shallow zooms, and whether the current pass is using it*/
+    private boolean singlePrecisionAllowed = true;
+    private boolean singlePrecision;
+
+    /**Whether pixels far outside the set are filled from distance estimates rather than iterated*/
+    private boolean distanceEstimation;
+
+    /**Side of the grid of jittered samples taken in each edge pixel, or 0 for none, and the samples of the last pass*/
+    private int supersampling;
+    private int[][][] subSamples;
+
+    /**Metrics that iteration passes are recorded in, unregistered unless this fractal is onscreen*/
+    private RenderMetrics metrics = RenderMetrics.unregistered();
+
+    /**Order and size of the tiles of the image, the pixel the cursor order spirals out from, and what is run after each tile*/
+    private TileOrder tileOrder = TileOrder.ROWS;
+    private int tileSize = TileScheduler.DEFAULT_TILE_SIZE;
+    private Point tileFocus;
+    private Consumer<Rectangle> tilePublisher;
+
     /**Corresponding Julia set*/
     public JuliaSet juliaSet;
 
@@ -59,7 +93,7 @@ public class MandelbrotSet implements FractalSet {
 
     }
 
-    /**Constructs a MandelbrotSet with the given properties*/
+    /**Constructs a MandelbrotSet with the given properties, which is left to be iterated once it has been set up*/
     public MandelbrotSet(int width, int height, int maxIterations, double power, boolean createJulia) {
 
         this.setDimensions(new Dimension(width, height));
@@ -69,26 +103,94 @@ public class MandelbrotSet implements FractalSet {
         if (createJulia) {
             this.juliaSet = new JuliaSet(this);
         }
-        this.iterate(false);
     }
 
     /**Iterates through every pixel on screen, calculating the number of iterations*/
     public void iterate(boolean partOfSuccession) {
 
+        long start = System.nanoTime();
+        Object job = FlightRecorderEvents.beginRenderJob();
+        iterationsExecuted = 0;
+        pixelsSkipped = 0;
+        singlePrecision = singlePrecisionAllowed && SinglePrecisionKernel.isPrecisionEnough(this);
         if (!partOfSuccession || chunkSize == 16) pixelArea = 0;
 
-        for (int y = 0; y < iterations.length; y += chunkSize) {
-            for (int x = 0; x < iterations[0].length; x += chunkSize) {
+        if (distanceEstimation && DistanceEstimateSampler.isSupported(this)) {
+            DistanceEstimateSampler sampler = new DistanceEstimateSampler(this);
+            sampler.sample(partOfSuccession);
+            iterationsExecuted = sampler.getIterationsExecuted();
+            pixelsSkipped = sampler.getPixelsSkipped();
+            pixelArea += sampler.getInteriorPixels();
+            supersampleEdges();
+            metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+            FlightRecorderEvents.commitRenderJob(job, this, iterationsExecuted, pixelsSkipped);
+            return;
+        }
+
+        int mirrorAxis = findMirrorAxis();
+        TileScheduler scheduler = new TileScheduler(tileOrder, tileSize, iterations[0].length, iterations.length, chunkSize, tileFocus);
+
+        for (int n = 0; n < scheduler.size(); n++) {
 
-                if (partOfSuccession) {
-                    if (!refined[y][x]) {
+            if (partOfSuccession && Thread.currentThread().isInterrupted()) break;
+            Object tile = FlightRecorderEvents.beginTile();
+            long tileStartIterations = iterationsExecuted;
+            Rectangle bounds = scheduler.getTile(n);
+            int bottom = Math.min(bounds.y + bounds.height, iterations.length);
+            int right = Math.min(bounds.x + bounds.width, iterations[0].length);
+            for (int y = bounds.y; y < bottom; y += chunkSize) {
+
+                int mirror = mirrorAxis - y;
+                boolean mirrored = mirrorAxis >= 0 && mirror >= 0 && mirror < y && mirror % chunkSize == 0;
+                for (int x = bounds.x; x < right; x += chunkSize) {
+
+                    if (partOfSuccession) {
+                        if (refined[y][x]) continue;
                         refined[y][x] = true;
-                        assignIterations(x, y);
                     }
+                    if (mirrored && scheduler.isIteratedBefore(x, mirror, x, y)) mirrorPixel(x, y, mirror);
+                    else assignIterations(x, y);
+
                 }
-                else assignIterations(x, y);
 
             }
+            scheduler.markDone(n);
+            FlightRecorderEvents.commitTile(tile, type, bounds.x, bounds.y, right - bounds.x, bottom - bounds.y, iterationsExecuted - tileStartIterations);
+            if (tilePublisher != null) tilePublisher.accept(bounds);
+
+        }
+        supersampleEdges();
+        metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+        FlightRecorderEvents.commitRenderJob(job, this, iterationsExecuted, pixelsSkipped);
+
+    }
+
+    /**
+     * Returns twice the row that the real axis runs along if the view can be mirrored across it, or -1 if it cannot.
+     * With a real zStart and an integer power the orbit of the conjugate of c is the conjugate of the orbit of c,
+     * and pixels only pair up exactly when the axis runs along a row or halfway between two rows.
+     */
+    private int findMirrorAxis() {
+
+        if (formula != null || power % 1 != 0 || zStart.getImaginary() != 0) return -1;
+        double axis = 2 * (iterations.length / 2 + centre.getImaginary() * zoom);
+        long row = Math.round(axis);
+        if (Math.abs(axis - row) > 1e-6 || row < 0 || row >= 2 * iterations.length) return -1;
+        return (int)row;
+
+    }
+
+    /**Copies a pixel from its reflection in the real axis, which has already been calculated*/
+    private void mirrorPixel(int x, int y, int mirror) {
+
+        iterations[y][x] = iterations[mirror][x];
+        ComplexNumber reflection = lastResults[mirror][x];
+        lastResults[y][x] = reflection == null ? null : new ComplexNumber(reflection.getReal(), -reflection.getImaginary());
+        if (iterations[y][x] == maxIterations) pixelArea++;
+        pixelsSkipped++;
+        if (recordingCosts) {
+            iterationCosts[y][x] = 0;
+            timeCosts[y][x] = 0;
         }
 
     }
@@ -96,24 +198,33 @@ public class MandelbrotSet implements FractalSet {
     /**Decides whether a complex number is able to be skipped/optimised or iterated upon*/
     public void assignIterations(int x, int y) {
 
+        long start = recordingCosts ? System.nanoTime() : 0;
+        long startIterations = iterationsExecuted;
         int iterationsCount;
         c = pixelToComplexNumber(x, y);
-        if (c.sqrOfMagnitude() <= 4) {
-            if (power == 2 && zStart.equals(new ComplexNumber())) {
-                if (c.isCardioid() || c.isPeriodTwoBulb()) {
-                    iterationsCount = maxIterations;
-                    lastResults[y][x] = c;
-                }
-                else iterationsCount = numIterations(zStart, c, x, y);
+        if (formula != null || c.sqrOfMagnitude() <= 4) {
+            boolean interior;
+            if (formula != null) interior = false;
+            else if (power == 2 && zStart.equals(new ComplexNumber())) interior = c.isCardioid() || c.isPeriodTwoBulb();
+            else interior = AttractingCycle.isInMainComponent(c, power, zStart);
+            if (interior) {
+                iterationsCount = maxIterations;
+                lastResults[y][x] = c;
+                pixelsSkipped++;
             }
             else iterationsCount = numIterations(zStart, c, x, y);
         }
         else  {
             iterationsCount = 1;
             lastResults[y][x] = c;
+            pixelsSkipped++;
         }
         if (iterationsCount == maxIterations) pixelArea++;
         iterations[y][x] = iterationsCount;
+        if (recordingCosts) {
+            iterationCosts[y][x] = (int)(iterationsExecuted - startIterations);
+            timeCosts[y][x] = (int)Math.min(Integer.MAX_VALUE, System.nanoTime() - start);
+        }
 
     }
 
@@ -139,6 +250,19 @@ public class MandelbrotSet implements FractalSet {
     /**Iterates upon the input complex number (with the Mandelbrot set equation) until it breaks, or bails out*/
     public int numIterations(ComplexNumber zStart, ComplexNumber c, int x, int y) {
 
+        if (formula != null) {
+            int count = formula.getKernel().iterate(zStart.getReal(), zStart.getImaginary(), c.getReal(), c.getImaginary(), maxIterations, formulaResult);
+            iterationsExecuted += count;
+            lastResults[y][x] = new ComplexNumber(formulaResult[0], formulaResult[1]);
+            return count;
+        }
+        if (singlePrecision) {
+            int count = SinglePrecisionKernel.iterate((float)zStart.getReal(), (float)zStart.getImaginary(), (float)c.getReal(), (float)c.getImaginary(), (int)power, maxIterations, formulaResult);
+            iterationsExecuted += count;
+            lastResults[y][x] = new ComplexNumber(formulaResult[0], formulaResult[1]);
+            return count;
+        }
+
         int i;
 
         for (i = 0; i < maxIterations && zStart.sqrOfMagnitude() <= 4; i++) {
@@ -148,6 +272,7 @@ public class MandelbrotSet implements FractalSet {
             else zStart = zStart.pow(power);
             zStart = zStart.add(c);
         }
+        iterationsExecuted += i;
         lastResults[y][x] = zStart;
 
         return i;
@@ -157,7 +282,11 @@ public class MandelbrotSet implements FractalSet {
     /**Moves the iterations forward from current max iterations a given value*/
     public void partiallyIterate(int change) {
 
+        long start = System.nanoTime();
+        iterationsExecuted = 0;
+        pixelsSkipped = 0;
         maxIterations += change;
+        singlePrecision = singlePrecisionAllowed && SinglePrecisionKernel.isPrecisionEnough(this);
         for (int y = 0; y < lastResults.length; y += chunkSize) {
             for (int x = 0; x < lastResults[0].length; x += chunkSize) {
 
@@ -170,6 +299,16 @@ public class MandelbrotSet implements FractalSet {
 
             }
         }
+        supersampleEdges();
+        metrics.recordIterate(System.nanoTime() - start, iterationsExecuted, pixelsSkipped, pixelArea);
+
+    }
+
+    /**Takes extra samples in the pixels on edges once the image is at full resolution, if anti-aliasing is on and the pass was not cancelled*/
+    private void supersampleEdges() {
+
+        boolean wanted = supersampling > 1 && chunkSize == 1 && !Thread.currentThread().isInterrupted();
+        subSamples = wanted ? new EdgeSupersampler(this, supersampling).sample() : null;
 
     }
 
@@ -177,6 +316,12 @@ public class MandelbrotSet implements FractalSet {
     public ComplexNumber stepIterationsUp(ComplexNumber zCurrent, int x, int y, int steps) {
 
         ComplexNumber c = pixelToComplexNumber(x, y);
+        if (formula != null) {
+            int count = formula.getKernel().iterate(zCurrent.getReal(), zCurrent.getImaginary(), c.getReal(), c.getImaginary(), steps, formulaResult);
+            iterationsExecuted += count;
+            iterations[y][x] += count;
+            return new ComplexNumber(formulaResult[0], formulaResult[1]);
+        }
         int i;
         for (i = 0; i < steps && zCurrent.sqrOfMagnitude() <= 4; i++) {
             if (power % 1 == 0) {
@@ -185,27 +330,50 @@ public class MandelbrotSet implements FractalSet {
             else zCurrent = zCurrent.pow(power);
             zCurrent = zCurrent.add(c);
         }
+        iterationsExecuted += i;
         iterations[y][x] += i;
         return zCurrent;
 
     }
 
-    /**Adds the result after each iteration of a complex number to the tracking queue*/
-    public GenericQueue<ComplexNumber> fillTrackingQueue(ComplexNumber point) {
+    /**Adds the result after each iteration of a complex number to the orbit, without creating objects for integer powers*/
+    public void fillOrbit(ComplexNumber point, OrbitBuffer orbit) {
 
-        GenericQueue<ComplexNumber> queue = new GenericQueue<>();
+        orbit.clear();
         int i = 1;
-        ComplexNumber current = new ComplexNumber();
-        while (i <= maxIterations && current.sqrOfMagnitude() <= 4) {
-            if (power % 1 == 0) {
-                current = current.pow((int)power);
+        if (formula != null) {
+            double[] result = {zStart.getReal(), zStart.getImaginary()};
+            while (i <= maxIterations && result[0] * result[0] + result[1] * result[1] <= 4) {
+                formula.getKernel().iterate(result[0], result[1], point.getReal(), point.getImaginary(), 1, result);
+                orbit.add(result[0], result[1]);
+                i++;
+            }
+        }
+        else if (power % 1 == 0) {
+            double real = 0;
+            double imaginary = 0;
+            while (i <= maxIterations && real * real + imaginary * imaginary <= 4) {
+                double powerReal = real;
+                double powerImaginary = imaginary;
+                for (int p = 1; p < power; p++) {
+                    double nextReal = powerReal * real - powerImaginary * imaginary;
+                    powerImaginary = powerReal * imaginary + real * powerImaginary;
+                    powerReal = nextReal;
+                }
+                real = powerReal + point.getReal();
+                imaginary = powerImaginary + point.getImaginary();
+                orbit.add(real, imaginary);
+                i++;
+            }
+        }
+        else {
+            ComplexNumber current = new ComplexNumber();
+            while (i <= maxIterations && current.sqrOfMagnitude() <= 4) {
+                current = current.pow(power).add(point);
+                orbit.add(current.getReal(), current.getImaginary());
+                i++;
             }
-            else current = current.pow(power);
-            current = current.add(point);
-            queue.add(current);
-            i++;
         }
-        return queue;
 
     }
 
@@ -223,6 +391,11 @@ public class MandelbrotSet implements FractalSet {
         clone.centre = this.centre;
         clone.zStart = this.zStart;
         clone.zoom = this.zoom;
+        clone.formula = this.formula;
+        clone.singlePrecisionAllowed = this.singlePrecisionAllowed;
+        clone.singlePrecision = this.singlePrecision;
+        clone.distanceEstimation = this.distanceEstimation;
+        clone.supersampling = this.supersampling;
 
         return clone;
 
@@ -266,6 +439,11 @@ public class MandelbrotSet implements FractalSet {
         this.iterations = new int[dimensions.height][dimensions.width];
         this.lastResults = new ComplexNumber[dimensions.height][dimensions.width];
         this.refined = new boolean[dimensions.height][dimensions.width];
+        this.subSamples = null;
+        if (recordingCosts) {
+            this.iterationCosts = new int[dimensions.height][dimensions.width];
+            this.timeCosts = new int[dimensions.height][dimensions.width];
+        }
 
     }
 
@@ -297,6 +475,28 @@ public class MandelbrotSet implements FractalSet {
         this.refined = refined;
     }
 
+    public boolean isRecordingCosts() {
+        return recordingCosts;
+    }
+
+    public void setRecordingCosts(boolean recordingCosts) {
+
+        this.recordingCosts = recordingCosts;
+        if (recordingCosts && (iterationCosts == null || iterationCosts.length != iterations.length || iterationCosts[0].length != iterations[0].length)) {
+            this.iterationCosts = new int[iterations.length][iterations[0].length];
+            this.timeCosts = new int[iterations.length][iterations[0].length];
+        }
+
+    }
+
+    public int[][] getIterationCosts() {
+        return iterationCosts;
+    }
+
+    public int[][] getTimeCosts() {
+        return timeCosts;
+    }
+
     public int getMaxIterations() {
         return maxIterations;
     }
@@ -361,4 +561,76 @@ public class MandelbrotSet implements FractalSet {
         this.c = c;
     }
 
+    public Formula getFormula() {
+        return formula;
+    }
+
+    public void setFormula(Formula formula) {
+        this.formula = formula;
+    }
+
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    public boolean isSinglePrecisionAllowed() {
+        return singlePrecisionAllowed;
+    }
+
+    public void setSinglePrecisionAllowed(boolean singlePrecisionAllowed) {
+        this.singlePrecisionAllowed = singlePrecisionAllowed;
+    }
+
+    public boolean isDistanceEstimation() {
+        return distanceEstimation;
+    }
+
+    public void setDistanceEstimation(boolean distanceEstimation) {
+        this.distanceEstimation = distanceEstimation;
+    }
+
+    public int getSupersampling() {
+        return supersampling;
+    }
+
+    public void setSupersampling(int supersampling) {
+        this.supersampling = supersampling;
+    }
+
+    public int[][][] getSubSamples() {
+        return subSamples;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public TileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+    public void setTileOrder(TileOrder tileOrder) {
+        this.tileOrder = tileOrder;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    public void setTileFocus(Point tileFocus) {
+        this.tileFocus = tileFocus;
+    }
+
+    public void setTilePublisher(Consumer<Rectangle> tilePublisher) {
+        this.tilePublisher = tilePublisher;
+    }
+
 }
@@ -2,9 +2,17 @@ package mandelbrot;
 
 public class MandelbrotViewer {
 
-    /**The main class that starts the program*/
+    /**The main class that starts the program, or measures the fastest kernel configuration when run with --calibrate*/
     public static void main(String[] args) {
 
+        if (args.length > 0 && args[0].equals("--calibrate")) {
+            System.out.println(PerformanceProfile.recalibrate());
+            return;
+        }
+
+        //Loads the kernel configuration for this machine, calibrating it in the background if this is the first run here
+        PerformanceProfile.current();
+
         //Uses anti-aliasing for swing text
         System.setProperty("awt.useSystemAAFontSettings","on");
         System.setProperty("swing.aatext", "true");
@@ -0,0 +1,111 @@
+package mandelbrot;
+
+/**
+ * Mathematical object that describes a path through the Mandelbrot plane which the c value of a Julia set
+ * can be swept along. The path is built from a list of control points and a PathType, and can be sampled
+ * at any proportion of the way along it. Polylines are sampled by arc length so that the c value moves at
+ * a constant speed, whereas splines use Catmull-Rom interpolation between each pair of control points.
+ */
+
+public class MorphPath {
+
+    /**The shape of the path*/
+    private PathType type;
+
+    /**Points that the path is constructed from*/
+    private ComplexNumber[] controlPoints;
+
+    /**Cumulative length of the polyline up to each control point*/
+    private double[] cumulativeLengths;
+
+    /**Constructs a path of the given type through the control points*/
+    public MorphPath(PathType type, ComplexNumber[] controlPoints) {
+
+        if (controlPoints.length < 2) throw new IllegalArgumentException("A path needs at least two control points");
+
+        this.type = type;
+        this.controlPoints = controlPoints;
+        this.cumulativeLengths = new double[controlPoints.length];
+        for (int i = 1; i < controlPoints.length; i++) {
+            cumulativeLengths[i] = cumulativeLengths[i - 1] + controlPoints[i - 1].distanceBetween(controlPoints[i]);
+        }
+
+    }
+
+    /**Returns the complex number found a given proportion (0 to 1) of the way along the path*/
+    public ComplexNumber pointAt(double t) {
+
+        t = Math.max(0, Math.min(1, t));
+        if (type == PathType.CIRCLE) return circlePointAt(t);
+        else if (type == PathType.SPLINE) return splinePointAt(t);
+        else return polylinePointAt(t);
+
+    }
+
+    /**Walks along the straight segments until the required arc length is reached*/
+    private ComplexNumber polylinePointAt(double t) {
+
+        double totalLength = cumulativeLengths[cumulativeLengths.length - 1];
+        if (totalLength == 0) return controlPoints[0];
+
+        double target = t * totalLength;
+        int segment = 1;
+        while (segment < controlPoints.length - 1 && cumulativeLengths[segment] < target) segment++;
+
+        double segmentLength = cumulativeLengths[segment] - cumulativeLengths[segment - 1];
+        double local = segmentLength == 0 ? 0 : (target - cumulativeLengths[segment - 1]) / segmentLength;
+        return interpolate(controlPoints[segment - 1], controlPoints[segment], local);
+
+    }
+
+    /**Travels anticlockwise around the first control point, starting and finishing at the second*/
+    private ComplexNumber circlePointAt(double t) {
+
+        ComplexNumber centre = controlPoints[0];
+        ComplexNumber start = controlPoints[1].subtract(centre);
+        double radius = Math.sqrt(start.sqrOfMagnitude());
+        double angle = Math.atan2(start.getImaginary(), start.getReal()) + 2 * Math.PI * t;
+        return new ComplexNumber(centre.getReal() + radius * Math.cos(angle), centre.getImaginary() + radius * Math.sin(angle));
+
+    }
+
+    /**Uses a Catmull-Rom spline so that the path passes smoothly through every control point*/
+    private ComplexNumber splinePointAt(double t) {
+
+        int segments = controlPoints.length - 1;
+        int segment = Math.min((int)(t * segments), segments - 1);
+        double local = t * segments - segment;
+
+        ComplexNumber p0 = controlPoints[Math.max(segment - 1, 0)];
+        ComplexNumber p1 = controlPoints[segment];
+        ComplexNumber p2 = controlPoints[segment + 1];
+        ComplexNumber p3 = controlPoints[Math.min(segment + 2, segments)];
+
+        double local2 = local * local;
+        double local3 = local2 * local;
+        double w0 = -0.5 * local3 + local2 - 0.5 * local;
+        double w1 = 1.5 * local3 - 2.5 * local2 + 1;
+        double w2 = -1.5 * local3 + 2 * local2 + 0.5 * local;
+        double w3 = 0.5 * local3 - 0.5 * local2;
+
+        return new ComplexNumber(w0 * p0.getReal() + w1 * p1.getReal() + w2 * p2.getReal() + w3 * p3.getReal(),
+                w0 * p0.getImaginary() + w1 * p1.getImaginary() + w2 * p2.getImaginary() + w3 * p3.getImaginary());
+
+    }
+
+    /**Linearly interpolates between two complex numbers*/
+    private ComplexNumber interpolate(ComplexNumber from, ComplexNumber to, double t) {
+
+        return new ComplexNumber(from.getReal() + (to.getReal() - from.getReal()) * t, from.getImaginary() + (to.getImaginary() - from.getImaginary()) * t);
+
+    }
+
+    public PathType getType() {
+        return type;
+    }
+
+    public ComplexNumber[] getControlPoints() {
+        return controlPoints;
+    }
+
+}
@@ -0,0 +1,198 @@
+package mandelbrot;
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Reusable store for the orbit of a tracked complex number, used in place of a queue of ComplexNumbers so that
+ * tracking does not create an object for every iteration. The points are kept in primitive arrays that only grow,
+ * so dragging the mouse refills the same memory each time. The path length is added up as points are added and
+ * nothing is removed when the orbit is read, which lets the information block use the orbit after it has been
+ * drawn. When drawing, the orbit is projected to pixels in one pass and every line between two pixels is drawn only
+ * once, however many times the orbit goes back over it. An orbit of millions of iterations therefore becomes a single
+ * Path2D of no more lines than there are distinct lines between the pixels it visits, and an orbit that settles into a
+ * cycle is drawn as the handful of lines of that cycle.
+ */
+
+public class OrbitBuffer {
+
+    /**Starting capacity of the hash table of lines already in the path, which is a power of two*/
+    private static final int INITIAL_TABLE_SIZE = 16384;
+
+    /**Real and imaginary parts of each point of the orbit*/
+    private double[] reals;
+    private double[] imaginaries;
+    private int length;
+
+    /**Sum of the distances between consecutive points*/
+    private double pathLength;
+
+    /**Number of points left in the last path after dropping repeated lines*/
+    private int drawnPoints;
+
+    /**Open addressed hash table of the lines in the last path, by the packed pixels at their ends, reused between paths*/
+    /**The table is doubled whenever it would become more than a quarter full*/
+    private long[] segmentStarts = new long[INITIAL_TABLE_SIZE];
+    private long[] segmentEnds = new long[INITIAL_TABLE_SIZE];
+    private boolean[] segmentUsed = new boolean[INITIAL_TABLE_SIZE];
+    private int segments;
+
+    /**Constructs an empty orbit*/
+    public OrbitBuffer() {
+
+        this.reals = new double[1024];
+        this.imaginaries = new double[1024];
+
+    }
+
+    /**Empties the orbit while keeping its arrays for reuse*/
+    public void clear() {
+
+        length = 0;
+        pathLength = 0;
+        drawnPoints = 0;
+
+    }
+
+    /**Adds a point to the end of the orbit*/
+    public void add(double real, double imaginary) {
+
+        if (length == reals.length) {
+            reals = Arrays.copyOf(reals, length * 2);
+            imaginaries = Arrays.copyOf(imaginaries, length * 2);
+        }
+        if (length > 0) pathLength += Math.hypot(real - reals[length - 1], imaginary - imaginaries[length - 1]);
+        reals[length] = real;
+        imaginaries[length] = imaginary;
+        length++;
+
+    }
+
+    /**Projects the orbit onto the pixels of a fractal and joins them into one path, skipping lines already in it*/
+    public Path2D toPath(FractalSet fractalSet) {
+
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, Math.min(length, INITIAL_TABLE_SIZE));
+        drawnPoints = 0;
+        if (length == 0) return path;
+        Arrays.fill(segmentUsed, false);
+        segments = 0;
+
+        double zoom = fractalSet.getZoom();
+        double centreReal = fractalSet.getCentre().getReal();
+        double centreImaginary = fractalSet.getCentre().getImaginary();
+        int halfWidth = fractalSet.getIterations()[0].length / 2;
+        int halfHeight = fractalSet.getIterations().length / 2;
+
+        int lastX = (int)((reals[0] - centreReal) * zoom) + halfWidth;
+        int lastY = (int) -((imaginaries[0] - centreImaginary) * zoom) + halfHeight;
+        path.moveTo(lastX, lastY);
+        drawnPoints = 1;
+        boolean penAtLast = true;
+        for (int i = 1; i < length; i++) {
+            int x = (int)((reals[i] - centreReal) * zoom) + halfWidth;
+            int y = (int) -((imaginaries[i] - centreImaginary) * zoom) + halfHeight;
+            if (x == lastX && y == lastY) continue;
+            if (addSegment(pack(lastX, lastY), pack(x, y))) {
+                if (!penAtLast) {
+                    path.moveTo(lastX, lastY);
+                    drawnPoints++;
+                }
+                path.lineTo(x, y);
+                drawnPoints++;
+                penAtLast = true;
+            }
+            else penAtLast = false;
+            lastX = x;
+            lastY = y;
+        }
+        return path;
+
+    }
+
+    /**Packs the coordinates of a pixel into a single long*/
+    private static long pack(int x, int y) {
+        return ((long)x << 32) | (y & 0xffffffffL);
+    }
+
+    /**Adds the line between two pixels to the table, in either direction, returning false if it was already there*/
+    private boolean addSegment(long a, long b) {
+
+        long start = Math.min(a, b);
+        long end = Math.max(a, b);
+        int slot = findSlot(segmentStarts, segmentEnds, segmentUsed, start, end);
+        if (segmentUsed[slot]) return false;
+        segmentUsed[slot] = true;
+        segmentStarts[slot] = start;
+        segmentEnds[slot] = end;
+        if (++segments * 4 > segmentUsed.length) growTable();
+        return true;
+
+    }
+
+    /**Finds the slot holding a line in a table, or the empty slot where it would go*/
+    private static int findSlot(long[] starts, long[] ends, boolean[] used, long start, long end) {
+
+        long hash = start * 0x9E3779B97F4A7C15L + end;
+        int mask = used.length - 1;
+        int slot = (int)((hash ^ (hash >>> 29)) & mask);
+        while (used[slot] && (starts[slot] != start || ends[slot] != end)) slot = (slot + 1) & mask;
+        return slot;
+
+    }
+
+    /**Doubles the capacity of the table of lines, moving the lines already in it*/
+    private void growTable() {
+
+        long[] starts = new long[segmentUsed.length * 2];
+        long[] ends = new long[starts.length];
+        boolean[] used = new boolean[starts.length];
+        for (int i = 0; i < segmentUsed.length; i++) {
+            if (!segmentUsed[i]) continue;
+            int slot = findSlot(starts, ends, used, segmentStarts[i], segmentEnds[i]);
+            used[slot] = true;
+            starts[slot] = segmentStarts[i];
+            ends[slot] = segmentEnds[i];
+        }
+        segmentStarts = starts;
+        segmentEnds = ends;
+        segmentUsed = used;
+
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public double getReal(int i) {
+        return reals[i];
+    }
+
+    public double getImaginary(int i) {
+        return imaginaries[i];
+    }
+
+    public ComplexNumber getPoint(int i) {
+        return new ComplexNumber(reals[i], imaginaries[i]);
+    }
+
+    public ComplexNumber getFirst() {
+        return getPoint(0);
+    }
+
+    public ComplexNumber getLast() {
+        return getPoint(length - 1);
+    }
+
+    public double getPathLength() {
+        return pathLength;
+    }
+
+    public int getDrawnPoints() {
+        return drawnPoints;
+    }
+
+}
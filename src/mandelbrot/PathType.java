@@ -0,0 +1,8 @@
+package mandelbrot;
+
+/**
+ * Enumeration object that contains the shapes of path that a MorphPath can sweep along in the complex plane.
+ * Polyline joins the control points with straight lines, circle travels around the first control point
+ * through the second and spline passes smoothly through every control point.*/
+
+public enum PathType {POLYLINE, CIRCLE, SPLINE}
@@ -0,0 +1,240 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Properties;
+
+/**
+ * Object that holds the fastest configuration of the fractal kernels for the machine the program is running on:
+ * whether the single precision kernel is used at shallow zooms, the number of worker threads and the size of the
+ * tiles handed to them. These differ between machines with different cores, caches and vector units, so rather
+ * than being fixed they are measured by a short calibration on the canonical views of the FractalBenchmark. The
+ * chosen configuration is cached in a properties file in the user's home directory, along with a description of
+ * the machine, so calibration only runs again when the program is moved to different hardware or a different
+ * Java runtime. Until then a default profile is used while the calibration runs in the background, so the first
+ * launch is not held up by it. It can also be forced by starting the program with --calibrate.
+ */
+
+public class PerformanceProfile {
+
+    /**File that the profile is cached in*/
+    private static final File PROFILE_FILE = new File(System.getProperty("user.home"), ".mandelbrot" + File.separator + "profile.properties");
+
+    /**Tile sizes tried by the calibration, in pixels along each side*/
+    private static final int[] TILE_SIZES = {64, 128, 256, 512};
+
+    /**Square resolution of the tiled render used to choose the threads and tile size*/
+    private static final int CALIBRATION_RESOLUTION = 1024;
+
+    /**The profile in use, loaded or calibrated the first time it is requested*/
+    private static PerformanceProfile current;
+
+    /**Run on the calibration thread once a background calibration has replaced the default profile*/
+    private static final ArrayList<Runnable> calibrationListeners = new ArrayList<>();
+
+    /**Description of the machine that the profile was measured on*/
+    private String machine;
+
+    /**The chosen configuration*/
+    private boolean singlePrecision;
+    private int threads;
+    private int tileSize;
+
+    /**Constructs a profile with the given configuration*/
+    public PerformanceProfile(String machine, boolean singlePrecision, int threads, int tileSize) {
+
+        this.machine = machine;
+        this.singlePrecision = singlePrecision;
+        this.threads = threads;
+        this.tileSize = tileSize;
+
+    }
+
+    /**
+     * Returns the profile for this machine, loading it from the cache. If there is none, the default profile is
+     * returned straight away and the calibration is started in the background to replace it
+     */
+    public static synchronized PerformanceProfile current() {
+
+        if (current == null) {
+            current = load(PROFILE_FILE);
+            if (current == null || !current.machine.equals(describeMachine())) {
+                current = defaultProfile();
+                Thread calibration = new Thread(PerformanceProfile::calibrateInBackground, "Calibration");
+                calibration.setDaemon(true);
+                calibration.setPriority(Thread.MIN_PRIORITY);
+                calibration.start();
+            }
+        }
+        return current;
+
+    }
+
+    /**Returns the unmeasured profile used until calibration finishes, which uses every processor and the smallest tiles*/
+    public static PerformanceProfile defaultProfile() {
+        return new PerformanceProfile("this machine, not yet calibrated", true, Runtime.getRuntime().availableProcessors(), TILE_SIZES[0]);
+    }
+
+    /**Adds something to run once a background calibration finishes, which is run on the calibration thread*/
+    public static synchronized void addCalibrationListener(Runnable listener) {
+        calibrationListeners.add(listener);
+    }
+
+    /**Calibrates and saves the profile, then replaces the default profile with it and tells the listeners*/
+    private static void calibrateInBackground() {
+
+        PerformanceProfile calibrated = calibrate();
+        calibrated.save(PROFILE_FILE);
+        ArrayList<Runnable> listeners;
+        synchronized (PerformanceProfile.class) {
+            current = calibrated;
+            listeners = new ArrayList<>(calibrationListeners);
+        }
+        for (Runnable listener: listeners) listener.run();
+
+    }
+
+    /**Measures every configuration and saves the fastest as the current profile*/
+    public static synchronized PerformanceProfile recalibrate() {
+
+        current = calibrate();
+        current.save(PROFILE_FILE);
+        return current;
+
+    }
+
+    /**Times the kernels, thread counts and tile sizes on the canonical views and returns the fastest combination*/
+    public static PerformanceProfile calibrate() {
+
+        MandelbrotSet doubleView = FractalBenchmark.createView(0, 2);
+        MandelbrotSet floatView = FractalBenchmark.createView(0, 2);
+        floatView.setSinglePrecisionAllowed(true);
+        long doubleTime = time(() -> doubleView.iterate(false));
+        long floatTime = time(() -> floatView.iterate(false));
+        boolean singlePrecision = floatView.isSinglePrecision() && floatTime < doubleTime;
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        int bestThreads = 1;
+        long bestTime = Long.MAX_VALUE;
+        for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+            long time = timeTiledRender(singlePrecision, threads, TILE_SIZES[0]);
+            if (time < bestTime) {
+                bestTime = time;
+                bestThreads = threads;
+            }
+            if (threads == processors) break;
+        }
+
+        int bestTileSize = TILE_SIZES[0];
+        for (int i = 1; i < TILE_SIZES.length; i++) {
+            long time = timeTiledRender(singlePrecision, bestThreads, TILE_SIZES[i]);
+            if (time < bestTime) {
+                bestTime = time;
+                bestTileSize = TILE_SIZES[i];
+            }
+        }
+
+        return new PerformanceProfile(describeMachine(), singlePrecision, bestThreads, bestTileSize);
+
+    }
+
+    /**Times a dimension estimate of the full set, which renders it tile by tile over the worker threads*/
+    private static long timeTiledRender(boolean singlePrecision, int threads, int tileSize) {
+
+        MandelbrotSet view = FractalBenchmark.createView(0, 2);
+        view.setDimensions(new Dimension(CALIBRATION_RESOLUTION, CALIBRATION_RESOLUTION));
+        view.setZoom(CALIBRATION_RESOLUTION / 3.0);
+        view.setSinglePrecisionAllowed(singlePrecision);
+        return time(() -> {
+            DimensionEstimator estimator = new DimensionEstimator(view, CALIBRATION_RESOLUTION, tileSize);
+            estimator.setThreads(threads);
+            try {
+                estimator.estimate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+    }
+
+    /**Runs once to warm up, then returns the faster of two timed runs in nanoseconds*/
+    private static long time(Runnable run) {
+
+        run.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+
+    }
+
+    /**Describes the hardware and runtime, so that a profile is not reused on a machine it was not measured on*/
+    private static String describeMachine() {
+
+        return System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors, "
+                + System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+
+    }
+
+    /**Reads a profile from a properties file, returning null if there is no valid profile there*/
+    public static PerformanceProfile load(File file) {
+
+        if (!file.isFile()) return null;
+        Properties properties = new Properties();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            properties.load(input);
+            return new PerformanceProfile(properties.getProperty("machine", ""),
+                    Boolean.parseBoolean(properties.getProperty("singlePrecision")),
+                    Integer.parseInt(properties.getProperty("threads")),
+                    Integer.parseInt(properties.getProperty("tileSize")));
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+
+    }
+
+    /**Writes the profile to a properties file*/
+    public void save(File file) {
+
+        Properties properties = new Properties();
+        properties.setProperty("machine", machine);
+        properties.setProperty("singlePrecision", Boolean.toString(singlePrecision));
+        properties.setProperty("threads", Integer.toString(threads));
+        properties.setProperty("tileSize", Integer.toString(tileSize));
+        file.getParentFile().mkdirs();
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            properties.store(output, "Fastest kernel configuration measured on this machine");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    public String getMachine() {
+        return machine;
+    }
+
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    @Override
+    public String toString() {
+        return (singlePrecision ? "Single" : "Double") + " precision at shallow zooms, " + threads + " threads, "
+                + tileSize + " pixel tiles on " + machine;
+    }
+
+}
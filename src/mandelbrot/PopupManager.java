@@ -76,6 +76,171 @@ public class PopupManager {
 
     }
 
+    /**Asks the user for a path of c values and renders the Julia set along it to a folder of numbered images*/
+    public static void exportJuliaMorph(MandelbrotFrame mandelbrotFrame) {
+
+        mandelbrotFrame.draw();
+        PathType pathType = (PathType)JOptionPane.showInputDialog(mandelbrotFrame, "Path shape:", "Export Julia morph", JOptionPane.PLAIN_MESSAGE, null, PathType.values(), PathType.CIRCLE);
+        if (pathType == null) return;
+
+        String defaultPoints = mandelbrotFrame.mandelbrotSet.getCentre() + " " + mandelbrotFrame.mandelbrotSet.getCentre().add(new ComplexNumber(0.1, 0));
+        String pointsInput = JOptionPane.showInputDialog(mandelbrotFrame, "Control points separated by spaces (a circle uses its centre then a point on it):", defaultPoints);
+        if (pointsInput == null) return;
+        String framesInput = JOptionPane.showInputDialog(mandelbrotFrame, "Number of frames:", "120");
+        if (framesInput == null) return;
+
+        String[] pointStrings = pointsInput.trim().split("\\s+");
+        if (pointStrings.length < 2 || !RegexManager.matchesUnsignedInteger(framesInput) || Integer.parseInt(framesInput) < 1) {
+            displayValidationErrorMessage(mandelbrotFrame);
+            return;
+        }
+        ComplexNumber[] controlPoints = new ComplexNumber[pointStrings.length];
+        for (int i = 0; i < pointStrings.length; i++) {
+            if (!RegexManager.matchesComplexNumber(pointStrings[i])) {
+                displayValidationErrorMessage(mandelbrotFrame);
+                return;
+            }
+            controlPoints[i] = new ComplexNumber(pointStrings[i]);
+        }
+
+        JFileChooser jfc = new JFileChooser(System.getProperty("user.home") + "/Desktop");
+        jfc.setDialogTitle("Export Julia morph");
+        jfc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (jfc.showSaveDialog(mandelbrotFrame) == JFileChooser.APPROVE_OPTION) {
+
+            File directory = jfc.getSelectedFile();
+            JuliaMorphRenderer renderer = new JuliaMorphRenderer(new MorphPath(pathType, controlPoints), mandelbrotFrame.mandelbrotSet.juliaSet.clone(),
+                    mandelbrotFrame.fractalContainer.conditions, mandelbrotFrame.fractalContainer.colours, Integer.parseInt(framesInput));
+            renderer.setThreads(PerformanceProfile.current().getThreads());
+            new Thread(() -> {
+                try {
+                    renderer.render(directory);
+                    long slowest = 0;
+                    long total = 0;
+                    for (long cost: renderer.getFrameCosts()) {
+                        slowest = Math.max(slowest, cost);
+                        total += cost;
+                    }
+                    String output = "Rendered " + framesInput + " frames in " + total / 1_000_000 + " ms of frame time (slowest frame " + slowest / 1_000_000 + " ms). See frame-costs.csv for details.";
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(mandelbrotFrame, output, "Export Julia morph", JOptionPane.PLAIN_MESSAGE));
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }).start();
+
+        }
+        mandelbrotFrame.draw();
+
+    }
+
+    /**Asks the user for a fractal and resolution, then estimates the dimension of its boundary off-screen*/
+    public static void estimateDimension(MandelbrotFrame mandelbrotFrame) {
+
+        FractalType type = (FractalType)JOptionPane.showInputDialog(mandelbrotFrame, "Fractal:", "Estimate dimension", JOptionPane.PLAIN_MESSAGE, null, FractalType.values(), FractalType.MANDELBROT);
+        if (type == null) return;
+        Integer[] resolutions = {4096, 8192, 16384, 32768};
+        Integer resolution = (Integer)JOptionPane.showInputDialog(mandelbrotFrame, "Resolution in pixels (square):", "Estimate dimension", JOptionPane.PLAIN_MESSAGE, null, resolutions, resolutions[0]);
+        if (resolution == null) return;
+
+        FractalSet template = type == FractalType.MANDELBROT ? mandelbrotFrame.mandelbrotSet.clone() : mandelbrotFrame.mandelbrotSet.juliaSet.clone();
+        PerformanceProfile profile = PerformanceProfile.current();
+        DimensionEstimator estimator = new DimensionEstimator(template, resolution, Math.min(resolution, profile.getTileSize()));
+        estimator.setThreads(profile.getThreads());
+        new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                estimator.estimate();
+                String output = "Estimated dimension: " + Math.round(estimator.getGradient() * 10000) / 10000.0
+                        + " ± " + Math.round(estimator.getConfidenceInterval() * 10000) / 10000.0 + " (95% confidence)"
+                        + "\nFrom " + estimator.getTileCount() + " tiles in " + (System.nanoTime() - start) / 1_000_000_000 + " s";
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(mandelbrotFrame, output, "Estimate dimension", JOptionPane.PLAIN_MESSAGE));
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }).start();
+
+    }
+
+    /**Asks the user for a fractal and precision, then estimates the area of the set within its current view*/
+    public static void estimateArea(MandelbrotFrame mandelbrotFrame) {
+
+        FractalType type = (FractalType)JOptionPane.showInputDialog(mandelbrotFrame, "Fractal:", "Estimate area", JOptionPane.PLAIN_MESSAGE, null, FractalType.values(), FractalType.MANDELBROT);
+        if (type == null) return;
+        String errorInput = JOptionPane.showInputDialog(mandelbrotFrame, "Target standard error:", "0.0001");
+        if (errorInput == null) return;
+        if (!RegexManager.matchesUnsignedDouble(errorInput) || Double.parseDouble(errorInput) <= 0) {
+            displayValidationErrorMessage(mandelbrotFrame);
+            return;
+        }
+
+        FractalSet template = type == FractalType.MANDELBROT ? mandelbrotFrame.mandelbrotSet.clone() : mandelbrotFrame.mandelbrotSet.juliaSet.clone();
+        AreaEstimator estimator = new AreaEstimator(template);
+        estimator.setThreads(PerformanceProfile.current().getThreads());
+        new Thread(() -> {
+            try {
+                estimator.estimate(Double.parseDouble(errorInput), 1_000_000_000L);
+                String output = "Estimated area: " + estimator.getArea() + " ± " + estimator.getStandardError() + " (standard error)"
+                        + "\nFrom " + estimator.getSamples() + " samples";
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(mandelbrotFrame, output, "Estimate area", JOptionPane.PLAIN_MESSAGE));
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }).start();
+
+    }
+
+    /**Asks the user whether to draw escaping or non-escaping orbits, then opens a frame that renders their density*/
+    public static void renderOrbitDensity(MandelbrotFrame mandelbrotFrame) {
+
+        String[] modes = {"Buddhabrot", "Anti-Buddhabrot"};
+        String mode = (String)JOptionPane.showInputDialog(mandelbrotFrame, "Orbits to draw:", "Render orbit density", JOptionPane.PLAIN_MESSAGE, null, modes, modes[0]);
+        if (mode == null) return;
+
+        new BuddhabrotFrame(mandelbrotFrame.mandelbrotSet.clone(), mode.equals(modes[1]), mandelbrotFrame.fractalContainer.colours);
+
+    }
+
+    /**Asks the user for an iteration formula and compiles it for both fractals, leaving it blank restores z^power + c*/
+    public static void editFormula(MandelbrotFrame mandelbrotFrame) {
+
+        Formula current = mandelbrotFrame.mandelbrotSet.getFormula();
+        String input = (String)JOptionPane.showInputDialog(mandelbrotFrame, "Formula in z and c, for example abs(z)^2 + c or conj(z)^2 + c (blank for z^power + c):",
+                "Iteration formula", JOptionPane.PLAIN_MESSAGE, null, null, current == null ? "" : current.getSource());
+        if (input == null) return;
+
+        Formula formula = null;
+        if (!input.trim().isEmpty()) {
+            try {
+                formula = new Formula(input.trim());
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(mandelbrotFrame, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        mandelbrotFrame.mandelbrotSet.setFormula(formula);
+        mandelbrotFrame.mandelbrotSet.juliaSet.setFormula(formula);
+        mandelbrotFrame.iterateAndDraw();
+
+    }
+
+    /**Lets the user specify a file location and then saves the recorded interactions to this location*/
+    public static void saveInteractionRecording(MandelbrotFrame mandelbrotFrame, InteractionRecorder recorder) {
+
+        mandelbrotFrame.draw();
+        JFileChooser jfc = new JFileChooser(mandelbrotFrame.filePath);
+        jfc.setDialogTitle("Save interaction recording");
+        jfc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        if (jfc.showSaveDialog(mandelbrotFrame) == JFileChooser.APPROVE_OPTION) {
+            try {
+                recorder.writeToFile(new File(jfc.getSelectedFile().getPath() + ".interactions"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        mandelbrotFrame.draw();
+
+    }
+
     /**Allows the user to select whether or not they want to reset the program to its original values*/
     public static void resetValues(MandelbrotFrame mandelbrotFrame) {
 
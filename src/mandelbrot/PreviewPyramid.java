@@ -0,0 +1,213 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Store of the last few full resolution images of a fractal, used to show a preview of a new view straight away
+ * while the real render is still being worked out. Each image is kept with the centre and zoom it was drawn at, so
+ * it can be scaled and translated onto any later view of the same fractal, and with a mipmap pyramid of copies
+ * halving in size so that it is shrunk from the nearest level rather than skipping most of its pixels. Previews
+ * are composed from the images at the lowest zoom first, so that zooming out still shows the surroundings from
+ * earlier frames while the finest detail available is drawn on top. Images are only reused while everything other
+ * than the view, and the colouring, is the same as when they were drawn.
+ */
+
+public class PreviewPyramid {
+
+    /**Number of images kept, the oldest being forgotten first*/
+    private static final int MAX_FRAMES = 8;
+
+    /**Size below which no further mipmap levels are made*/
+    private static final int MIN_LEVEL_SIZE = 16;
+
+    /**The images kept, oldest first*/
+    private ArrayList<Frame> frames;
+
+    /**Constructs an empty pyramid*/
+    public PreviewPyramid() {
+
+        this.frames = new ArrayList<>();
+
+    }
+
+    /**Keeps an image of the fractal's current view, forgetting images of fractals that no longer match it*/
+    public void record(BufferedImage image, FractalSet fractalSet, FractalColours colours, DrawingConditions conditions) {
+
+        Frame frame = new Frame(image, fractalSet, colours, conditions);
+        frames.removeIf(kept -> !kept.matches(frame) || kept.sameView(frame));
+        frames.add(frame);
+        if (frames.size() > MAX_FRAMES) frames.remove(0);
+
+    }
+
+    /**
+     * Draws the kept images onto an image of the fractal's current view, returning false if none of them are of
+     * this fractal or they are all of exactly this view, so there is nothing to preview
+     */
+    public boolean compose(BufferedImage target, FractalSet fractalSet, FractalColours colours, DrawingConditions conditions, Color background) {
+
+        Frame view = new Frame(null, fractalSet, colours, conditions);
+        ArrayList<Frame> matching = new ArrayList<>();
+        for (Frame frame: frames) {
+            if (frame.matches(view)) matching.add(frame);
+        }
+        if (matching.isEmpty() || (matching.size() == 1 && matching.get(0).sameView(view))) return false;
+        matching.sort((first, second) -> Double.compare(first.zoom, second.zoom));
+
+        int first = 0;
+        for (int i = matching.size() - 1; i > 0; i--) {
+            if (covers(matching.get(i), view)) {
+                first = i;
+                break;
+            }
+        }
+
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        if (!covers(matching.get(first), view)) {
+            g.setColor(background);
+            g.fillRect(0, 0, target.getWidth(), target.getHeight());
+        }
+        for (int i = first; i < matching.size(); i++) {
+            drawFrame(g, matching.get(i), view);
+        }
+        g.dispose();
+        return true;
+
+    }
+
+    /**Works out the left, top and scale at which a kept image lies in another view, lining up the centres of pixels*/
+    private static double[] locate(Frame frame, Frame view) {
+
+        double scale = view.zoom / frame.zoom;
+        double left = (frame.centre.getReal() - frame.width / 2 / frame.zoom - view.centre.getReal()) * view.zoom + view.width / 2 + (1 - scale) / 2;
+        double top = (view.centre.getImaginary() - frame.centre.getImaginary() - frame.height / 2 / frame.zoom) * view.zoom + view.height / 2 + (1 - scale) / 2;
+        return new double[] {left, top, scale};
+
+    }
+
+    /**Checks whether a kept image covers the whole of another view, so that nothing drawn beneath it would show*/
+    private static boolean covers(Frame frame, Frame view) {
+
+        double[] location = locate(frame, view);
+        return location[0] <= 0 && location[1] <= 0 && location[0] + frame.width * location[2] >= view.width
+                && location[1] + frame.height * location[2] >= view.height;
+
+    }
+
+    /**Draws a kept image where its view lies in another view, from the mipmap level closest to the size it is drawn*/
+    private void drawFrame(Graphics2D g, Frame frame, Frame view) {
+
+        double[] location = locate(frame, view);
+        double left = location[0];
+        double top = location[1];
+        double scale = location[2];
+        if (left >= view.width || top >= view.height || left + frame.width * scale <= 0 || top + frame.height * scale <= 0) return;
+        if (frame.width * scale < 1 || frame.height * scale < 1) return;
+
+        int level = 0;
+        while (level + 1 < frame.levels.size() && scale * (1 << (level + 1)) <= 1) level++;
+        BufferedImage image = frame.levels.get(level);
+        double levelScale = scale * frame.width / image.getWidth();
+
+        AffineTransform transform = new AffineTransform();
+        transform.translate(left, top);
+        transform.scale(levelScale, levelScale);
+        g.drawImage(image, transform, null);
+
+    }
+
+    /**Forgets every image*/
+    public void clear() {
+
+        frames.clear();
+
+    }
+
+    public int getFrames() {
+        return frames.size();
+    }
+
+    /**An image kept with its mipmap levels, the view it was drawn at and what it was drawn of*/
+    private static class Frame {
+
+        private ArrayList<BufferedImage> levels;
+        private int width;
+        private int height;
+        private ComplexNumber centre;
+        private double zoom;
+
+        private FractalType type;
+        private ComplexNumber c;
+        private ComplexNumber zStart;
+        private double power;
+        private int maxIterations;
+        private Formula formula;
+        private int[] colours;
+        private boolean palette;
+        private boolean histogram;
+
+        private Frame(BufferedImage image, FractalSet fractalSet, FractalColours colours, DrawingConditions conditions) {
+
+            this.width = fractalSet.getIterations()[0].length;
+            this.height = fractalSet.getIterations().length;
+            this.centre = fractalSet.getCentre();
+            this.zoom = fractalSet.getZoom();
+            this.type = fractalSet.getType();
+            this.c = fractalSet.getC();
+            this.zStart = fractalSet.getzStart();
+            this.power = fractalSet.getPower();
+            this.maxIterations = fractalSet.getMaxIterations();
+            this.formula = fractalSet.getFormula();
+            this.colours = new int[] {colours.getOuter().getRGB(), colours.getEdge().getRGB(), colours.getInner().getRGB()};
+            this.palette = conditions.readyToColourPalette;
+            this.histogram = conditions.readyToHistogramColour;
+            if (image != null) this.levels = buildLevels(image);
+
+        }
+
+        /**Makes a copy of the image, followed by copies each half the size of the last*/
+        private static ArrayList<BufferedImage> buildLevels(BufferedImage image) {
+
+            ArrayList<BufferedImage> levels = new ArrayList<>();
+            BufferedImage level = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            level.getGraphics().drawImage(image, 0, 0, null);
+            levels.add(level);
+            while (level.getWidth() / 2 >= MIN_LEVEL_SIZE && level.getHeight() / 2 >= MIN_LEVEL_SIZE) {
+                BufferedImage half = new BufferedImage(level.getWidth() / 2, level.getHeight() / 2, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = half.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(level, 0, 0, half.getWidth(), half.getHeight(), null);
+                g.dispose();
+                levels.add(half);
+                level = half;
+            }
+            return levels;
+
+        }
+
+        /**Checks whether another frame is of the same fractal, coloured the same way, whatever its view*/
+        private boolean matches(Frame other) {
+
+            boolean sameC = type != FractalType.JULIA || c.equals(other.c);
+            boolean sameZStart = type != FractalType.MANDELBROT || zStart.equals(other.zStart);
+            return type == other.type && sameC && sameZStart && power == other.power && maxIterations == other.maxIterations
+                    && formula == other.formula && Arrays.equals(colours, other.colours) && palette == other.palette
+                    && histogram == other.histogram;
+
+        }
+
+        /**Checks whether another frame shows exactly the same view*/
+        private boolean sameView(Frame other) {
+
+            return width == other.width && height == other.height && zoom == other.zoom && centre.equals(other.centre);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renderer that keeps improving an image while the user is not interacting with it. Starting from the single
+ * sample per pixel image of an ArgandDiagram, every pixel is sampled again and again at jittered points within it,
+ * and the colours of the samples are added into a float buffer, so that the average converges towards the true
+ * colour of the area each pixel covers and edges and filaments stop aliasing. Each worker thread owns every
+ * threads-th row, so the threads never contend over a pixel, and they run at low priority so that they never slow
+ * down the interface. The colouring inputs are copied when the accumulator is built, so the workers never read
+ * state that the event dispatch thread changes. The sums of each row are only touched while holding that row, so a
+ * snapshot can be taken at any time. Workers check between pixels whether they have been stopped, throwing away the
+ * row they were on, and stopping them does not lose the samples taken so far: starting again carries on from them.
+ */
+
+public class ProgressiveAccumulator {
+
+    /**Number of samples per pixel at which the image is considered to have converged*/
+    private static final int MAX_SAMPLES = 64;
+
+    /**Copies of the colouring inputs of the diagram whose image is the first sample of every pixel*/
+    private int maxIterations;
+    private int[] histogram;
+    private int histogramTotal;
+    private DrawingConditions conditions;
+    private FractalColours colours;
+
+    /**Copy of the fractal being sampled, and its view when accumulation began*/
+    private FractalSet template;
+    private int width;
+    private int height;
+    private double zoom;
+    private ComplexNumber centre;
+
+    /**Sums of the colours of the samples of each pixel, row by row, and the number of samples taken in each row*/
+    private float[][] red;
+    private float[][] green;
+    private float[][] blue;
+    private int[] rowSamples;
+
+    private Thread[] workers;
+    private volatile boolean running;
+
+    /**Constructs an accumulator that starts from an image of the fractal, coloured with the given inputs*/
+    public ProgressiveAccumulator(BufferedImage image, FractalSet fractalSet, int[] histogram, int histogramTotal, DrawingConditions conditions, FractalColours colours) {
+
+        this.maxIterations = fractalSet.getMaxIterations();
+        this.histogram = histogram == null ? null : histogram.clone();
+        this.histogramTotal = histogramTotal;
+        this.conditions = conditions.clone();
+        this.colours = new FractalColours(colours.getOuter(), colours.getEdge(), colours.getInner());
+        this.template = fractalSet.clone();
+        this.template.setDimensions(new Dimension(1, 1));
+        this.width = fractalSet.getIterations()[0].length;
+        this.height = fractalSet.getIterations().length;
+        this.zoom = fractalSet.getZoom();
+        this.centre = fractalSet.getCentre();
+        this.red = new float[height][width];
+        this.green = new float[height][width];
+        this.blue = new float[height][width];
+        this.rowSamples = new int[height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                red[y][x] = (rgb >> 16) & 0xff;
+                green[y][x] = (rgb >> 8) & 0xff;
+                blue[y][x] = rgb & 0xff;
+            }
+            rowSamples[y] = 1;
+        }
+
+    }
+
+    /**Starts sampling on the given number of low priority worker threads, carrying on from any earlier samples*/
+    public void start(int threads) {
+
+        if (running) return;
+        running = true;
+        workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            workers[t] = new Thread(() -> sample(index, threads), "Accumulator-" + t);
+            workers[t].setDaemon(true);
+            workers[t].setPriority(Thread.MIN_PRIORITY);
+            workers[t].start();
+        }
+
+    }
+
+    /**Tells every worker thread to stop after the pixel it is on, without waiting for them*/
+    public void stop() {
+
+        running = false;
+        if (workers != null) for (Thread worker: workers) worker.interrupt();
+
+    }
+
+    /**Adds a sample to every threads-th row from the first in turn, a whole row at a time, until stopped or converged*/
+    private void sample(int first, int threads) {
+
+        FractalSet kernel = template.clone();
+        float[] rowRed = new float[width];
+        float[] rowGreen = new float[width];
+        float[] rowBlue = new float[width];
+
+        boolean converged = false;
+        while (running && !converged) {
+            converged = true;
+            for (int y = first; running && y < height; y += threads) {
+
+                int pass;
+                synchronized (red[y]) {
+                    pass = rowSamples[y];
+                }
+                if (pass >= MAX_SAMPLES) continue;
+                converged = false;
+
+                for (int x = 0; x < width; x++) {
+                    if (!running || Thread.currentThread().isInterrupted()) return;
+                    double offsetX = EdgeSupersampler.jitter(x, y, 2 * pass) - 0.5;
+                    double offsetY = EdgeSupersampler.jitter(x, y, 2 * pass + 1) - 0.5;
+                    ComplexNumber point = new ComplexNumber(centre.getReal() + (x + offsetX - width / 2) / zoom,
+                            centre.getImaginary() - (y + offsetY - height / 2) / zoom);
+                    int numIterations = EdgeSupersampler.iteratePoint(kernel, point, 0, 0);
+                    Color colour = ArgandDiagram.colourIterations(numIterations, maxIterations, histogram, histogramTotal, conditions, colours);
+                    rowRed[x] = colour.getRed();
+                    rowGreen[x] = colour.getGreen();
+                    rowBlue[x] = colour.getBlue();
+                }
+
+                synchronized (red[y]) {
+                    if (rowSamples[y] != pass) continue;
+                    for (int x = 0; x < width; x++) {
+                        red[y][x] += rowRed[x];
+                        green[y][x] += rowGreen[x];
+                        blue[y][x] += rowBlue[x];
+                    }
+                    rowSamples[y]++;
+                }
+
+            }
+        }
+
+    }
+
+    /**Averages the samples of every pixel into an image*/
+    public BufferedImage snapshot() {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            synchronized (red[y]) {
+                float samples = rowSamples[y];
+                for (int x = 0; x < width; x++) {
+                    int rgb = Math.round(red[y][x] / samples) << 16 | Math.round(green[y][x] / samples) << 8 | Math.round(blue[y][x] / samples);
+                    image.setRGB(x, y, rgb);
+                }
+            }
+        }
+        return image;
+
+    }
+
+    /**Checks whether every row has been given the most samples it will get*/
+    public boolean isConverged() {
+
+        for (int y = 0; y < height; y++) {
+            synchronized (red[y]) {
+                if (rowSamples[y] < MAX_SAMPLES) return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**Returns the fewest samples taken in any pixel*/
+    public int getSamples() {
+
+        int samples = MAX_SAMPLES;
+        for (int y = 0; y < height; y++) {
+            synchronized (red[y]) {
+                samples = Math.min(samples, rowSamples[y]);
+            }
+        }
+        return samples;
+
+    }
+
+}
@@ -3,7 +3,8 @@ package mandelbrot;
 /**
  * Mathematical object that is used to calculate the Pearson Correlation Coefficient and then to find the
  * gradient of the linear regression line that lies along the data points entered. The object functions via
- * two arrays that contain the x and y values respectively.
+ * two arrays that contain the x and y values respectively. The standard error of the gradient can also be
+ * found, which gives a confidence interval for how well the data pins the gradient down.
  */
 
 public class RegressionCalculator {
@@ -20,6 +21,11 @@ public class RegressionCalculator {
     private double[] xDeviation;
     private double[] yDeviation;
 
+    /**Two-tailed 95% critical values of Student's t-distribution for 1 to 30 degrees of freedom*/
+    private static final double[] tTable = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
     /**Constructs a RegressionCalculator and sets up for calculation of gradient*/
     public RegressionCalculator(double[] xValues, double[] yValues) {
 
@@ -66,6 +72,40 @@ public class RegressionCalculator {
 
     }
 
+    /**Calculates the standard error of the gradient from the spread of the points about the regression line*/
+    public double calculateStandardError() {
+
+        double sumOfProduct = 0;
+        double sumOfXSqr = 0;
+        double sumOfYSqr = 0;
+        for (int i = 0; i < xValues.length; i++) {
+            sumOfProduct += xDeviation[i] * yDeviation[i];
+            sumOfXSqr += xDeviation[i] * xDeviation[i];
+            sumOfYSqr += yDeviation[i] * yDeviation[i];
+        }
+
+        double gradient = sumOfProduct / sumOfXSqr;
+        double sumOfResidualSqr = Math.max(0, sumOfYSqr - gradient * sumOfProduct);
+        return Math.sqrt(sumOfResidualSqr / (xValues.length - 2) / sumOfXSqr);
+
+    }
+
+    /**Calculates the half width of the 95% confidence interval of the gradient using Student's t-distribution*/
+    public double calculateConfidenceInterval() {
+
+        return tCritical(xValues.length - 2) * calculateStandardError();
+
+    }
+
+    /**Looks up the critical t value, falling back on the normal distribution for large samples*/
+    private static double tCritical(int degreesOfFreedom) {
+
+        if (degreesOfFreedom < 1) return Double.NaN;
+        if (degreesOfFreedom <= tTable.length) return tTable[degreesOfFreedom - 1];
+        return 1.960;
+
+    }
+
     /**Calculates the mean of the data entered*/
     private double calculateMean(double[] values) {
 
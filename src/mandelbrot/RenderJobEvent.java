@@ -0,0 +1,46 @@
+package mandelbrot;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event that covers one full pass of iteration over a FractalSet. The properties of
+ * the fractal are stored with the event so that a slow pass can be traced back to the view that caused it.
+ */
+
+@Name("mandelbrot.RenderJob")
+@Label("Render Job")
+@Category({"Mandelbrot Viewer", "Rendering"})
+@Description("A pass of iteration over every pixel of a fractal")
+class RenderJobEvent extends Event {
+
+    @Label("Fractal")
+    String fractal;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Chunk Size")
+    int chunkSize;
+
+    @Label("Max Iterations")
+    int maxIterations;
+
+    @Label("Power")
+    double power;
+
+    @Label("Zoom")
+    double zoom;
+
+    @Label("Centre")
+    String centre;
+
+    @Label("Iterations Executed")
+    long iterations;
+
+    @Label("Pixels Skipped")
+    long pixelsSkipped;
+
+}
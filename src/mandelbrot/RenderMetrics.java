@@ -0,0 +1,217 @@
+package mandelbrot;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+
+/**
+ * Object that records how long each stage of drawing a fractal takes, so that it is possible to tell whether
+ * a slow frame was spent iterating, building the histogram, colouring or painting. There is one instance for
+ * each FractalType, which is registered with the platform MBean server the first time it is used so that the
+ * measurements can be watched with JConsole or any other JMX client without attaching a profiler. Fractals that are
+ * drawn off-screen, such as clones used for previews, estimates and exports, are given unregistered metrics of their
+ * own so that their work is neither mixed into the frames onscreen nor contends for the same locks. As well as
+ * the durations, the number of iterations executed, the number of pixels skipped by shortcuts (such as the
+ * cardioid and bulb check) and the pixel area of each frame are kept.
+ */
+
+public class RenderMetrics implements RenderMetricsMBean {
+
+    /**The metrics for each fractal, created on demand*/
+    private static final EnumMap<FractalType, RenderMetrics> instances = new EnumMap<>(FractalType.class);
+
+    /**Upper bounds of the histogram buckets in milliseconds*/
+    private static final double[] histogramBounds = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+
+    /**Running totals*/
+    private long frameCount;
+    private long totalIterations;
+    private long totalPixelsSkipped;
+
+    /**Measurements of the most recent frame, with durations in nanoseconds*/
+    private long lastIterateTime;
+    private long lastHistogramTime;
+    private long lastColourTime;
+    private long lastPaintTime;
+    private long lastIterations;
+    private long lastPixelsSkipped;
+    private int lastPixelArea;
+
+    /**Histograms of the duration of each stage*/
+    private long[] iterateHistogram;
+    private long[] histogramHistogram;
+    private long[] colourHistogram;
+    private long[] paintHistogram;
+
+    /**Constructs an empty set of metrics*/
+    private RenderMetrics() {
+
+        reset();
+
+    }
+
+    /**Returns a new set of metrics that is not registered over JMX, for a fractal that is not drawn onscreen*/
+    public static RenderMetrics unregistered() {
+
+        return new RenderMetrics();
+
+    }
+
+    /**Returns the metrics for a fractal type, registering them over JMX the first time they are requested*/
+    public static synchronized RenderMetrics forType(FractalType type) {
+
+        RenderMetrics metrics = instances.get(type);
+        if (metrics == null) {
+            metrics = new RenderMetrics();
+            instances.put(type, metrics);
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName("mandelbrot:type=RenderMetrics,name=" + type);
+                if (!server.isRegistered(name)) server.registerMBean(metrics, name);
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+        return metrics;
+
+    }
+
+    /**Records a pass of iteration over the fractal*/
+    public synchronized void recordIterate(long nanoseconds, long iterations, long pixelsSkipped, int pixelArea) {
+
+        lastIterateTime = nanoseconds;
+        lastIterations = iterations;
+        lastPixelsSkipped = pixelsSkipped;
+        lastPixelArea = pixelArea;
+        totalIterations += iterations;
+        totalPixelsSkipped += pixelsSkipped;
+        addToHistogram(iterateHistogram, nanoseconds);
+
+    }
+
+    /**Records the building of the histogram used for histogram colouring*/
+    public synchronized void recordHistogram(long nanoseconds) {
+
+        lastHistogramTime = nanoseconds;
+        addToHistogram(histogramHistogram, nanoseconds);
+
+    }
+
+    /**Records the colouring of the image*/
+    public synchronized void recordColour(long nanoseconds) {
+
+        lastColourTime = nanoseconds;
+        addToHistogram(colourHistogram, nanoseconds);
+
+    }
+
+    /**Records the painting of the image onscreen, which marks the end of a frame*/
+    public synchronized void recordPaint(long nanoseconds) {
+
+        lastPaintTime = nanoseconds;
+        frameCount++;
+        addToHistogram(paintHistogram, nanoseconds);
+
+    }
+
+    /**Adds one to the bucket that the duration falls into*/
+    private void addToHistogram(long[] histogram, long nanoseconds) {
+
+        double milliseconds = nanoseconds / 1e6;
+        int bucket = 0;
+        while (bucket < histogramBounds.length && milliseconds > histogramBounds[bucket]) bucket++;
+        histogram[bucket]++;
+
+    }
+
+    /**Returns the lines of text shown in the extended information block of the ArgandDiagram*/
+    public synchronized String[] describeLastFrame() {
+
+        return new String[] {
+                "Iterate: " + Math.round(lastIterateTime / 1e4) / 100.0 + " ms",
+                "Histogram: " + Math.round(lastHistogramTime / 1e4) / 100.0 + " ms",
+                "Colour: " + Math.round(lastColourTime / 1e4) / 100.0 + " ms",
+                "Paint: " + Math.round(lastPaintTime / 1e4) / 100.0 + " ms",
+                "Iterations: " + lastIterations,
+                "Pixels skipped: " + lastPixelsSkipped,
+                "Pixel area: " + lastPixelArea
+        };
+
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    public synchronized long getTotalIterations() {
+        return totalIterations;
+    }
+
+    public synchronized long getTotalPixelsSkipped() {
+        return totalPixelsSkipped;
+    }
+
+    public synchronized double getLastIterateMillis() {
+        return lastIterateTime / 1e6;
+    }
+
+    public synchronized double getLastHistogramMillis() {
+        return lastHistogramTime / 1e6;
+    }
+
+    public synchronized double getLastColourMillis() {
+        return lastColourTime / 1e6;
+    }
+
+    public synchronized double getLastPaintMillis() {
+        return lastPaintTime / 1e6;
+    }
+
+    public synchronized long getLastIterations() {
+        return lastIterations;
+    }
+
+    public synchronized long getLastPixelsSkipped() {
+        return lastPixelsSkipped;
+    }
+
+    public synchronized int getLastPixelArea() {
+        return lastPixelArea;
+    }
+
+    public double[] getHistogramBoundsMillis() {
+        return histogramBounds.clone();
+    }
+
+    public synchronized long[] getIterateHistogram() {
+        return iterateHistogram.clone();
+    }
+
+    public synchronized long[] getHistogramHistogram() {
+        return histogramHistogram.clone();
+    }
+
+    public synchronized long[] getColourHistogram() {
+        return colourHistogram.clone();
+    }
+
+    public synchronized long[] getPaintHistogram() {
+        return paintHistogram.clone();
+    }
+
+    public synchronized void reset() {
+
+        frameCount = totalIterations = totalPixelsSkipped = 0;
+        lastIterateTime = lastHistogramTime = lastColourTime = lastPaintTime = 0;
+        lastIterations = lastPixelsSkipped = 0;
+        lastPixelArea = 0;
+        iterateHistogram = new long[histogramBounds.length + 1];
+        histogramHistogram = new long[histogramBounds.length + 1];
+        colourHistogram = new long[histogramBounds.length + 1];
+        paintHistogram = new long[histogramBounds.length + 1];
+
+    }
+
+}
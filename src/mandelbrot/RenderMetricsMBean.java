@@ -0,0 +1,47 @@
+package mandelbrot;
+
+/**
+ * Management interface of RenderMetrics that dictates which measurements are published over JMX.
+ * Durations are given in milliseconds, and each histogram holds the number of frames whose stage took
+ * at most the corresponding bound in getHistogramBoundsMillis(), with the last bucket holding the rest.
+ */
+
+public interface RenderMetricsMBean {
+
+    /**Totals since the metrics were last reset*/
+    long getFrameCount();
+
+    long getTotalIterations();
+
+    long getTotalPixelsSkipped();
+
+    /**Measurements of the most recent frame*/
+    double getLastIterateMillis();
+
+    double getLastHistogramMillis();
+
+    double getLastColourMillis();
+
+    double getLastPaintMillis();
+
+    long getLastIterations();
+
+    long getLastPixelsSkipped();
+
+    int getLastPixelArea();
+
+    /**Distributions of the duration of each stage*/
+    double[] getHistogramBoundsMillis();
+
+    long[] getIterateHistogram();
+
+    long[] getHistogramHistogram();
+
+    long[] getColourHistogram();
+
+    long[] getPaintHistogram();
+
+    /**Clears every measurement*/
+    void reset();
+
+}
@@ -0,0 +1,35 @@
+package mandelbrot;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event that covers the iteration of one tile of a FractalSet, which is a single row of chunks
+ * in row order and a square of the profile's tile size in the other orders of the TileScheduler. Comparing the tiles
+ * of a render job shows which parts of the screen cost the most.
+ */
+
+@Name("mandelbrot.RenderTile")
+@Label("Render Tile")
+@Category({"Mandelbrot Viewer", "Rendering"})
+@Description("The iteration of one tile of a fractal")
+class RenderTileEvent extends Event {
+
+    @Label("Fractal")
+    String fractal;
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Iterations Executed")
+    long iterations;
+
+}
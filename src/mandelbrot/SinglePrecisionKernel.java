@@ -0,0 +1,55 @@
+package mandelbrot;
+
+/**
+ * Static class holding the single precision iteration loop used for shallow zooms. At the default zoom, and for
+ * the first several zoom levels after it, the gap between neighbouring pixels is thousands of times larger than
+ * the spacing between floats near the set, so doubles carry far more precision than the image can show. The
+ * loop is scalar, and its benefit is that it works on primitive floats in local variables rather than creating
+ * a ComplexNumber for every iteration as the double precision loop does. The sets ask this class whether their
+ * current view is shallow enough before each pass, including when the max iterations are raised, and go back
+ * to double precision as soon as the zoom or the max iterations get too deep.
+ */
+
+public class SinglePrecisionKernel {
+
+    /**Number of float steps per iteration that must fit within the gap between neighbouring pixels*/
+    private static final double MARGIN = 4;
+
+    /**
+     * Checks whether floats can resolve the pixels of the set's view, including every point up to bailout.
+     * Rounding errors build up with every iteration, so deeper max iterations need a wider gap between pixels.
+     */
+    public static boolean isPrecisionEnough(FractalSet fractalSet) {
+
+        if (fractalSet.getFormula() != null || fractalSet.getPower() % 1 != 0) return false;
+        double spacing = 1 / fractalSet.getZoom();
+        int[][] iterations = fractalSet.getIterations();
+        double largest = Math.max(2, Math.max(
+                Math.abs(fractalSet.getCentre().getReal()) + iterations[0].length * spacing / 2,
+                Math.abs(fractalSet.getCentre().getImaginary()) + iterations.length * spacing / 2));
+        return spacing >= MARGIN * fractalSet.getMaxIterations() * Math.ulp((float)largest);
+
+    }
+
+    /**Iterates z^power + c in floats until z breaks or bails out, writing the final z into result*/
+    public static int iterate(float zReal, float zImaginary, float cReal, float cImaginary, int power, int maxIterations, double[] result) {
+
+        int i;
+        for (i = 0; i < maxIterations && zReal * zReal + zImaginary * zImaginary <= 4; i++) {
+            float powerReal = zReal;
+            float powerImaginary = zImaginary;
+            for (int p = 1; p < power; p++) {
+                float nextReal = powerReal * zReal - powerImaginary * zImaginary;
+                powerImaginary = powerReal * zImaginary + zReal * powerImaginary;
+                powerReal = nextReal;
+            }
+            zReal = powerReal + cReal;
+            zImaginary = powerImaginary + cImaginary;
+        }
+        result[0] = zReal;
+        result[1] = zImaginary;
+        return i;
+
+    }
+
+}
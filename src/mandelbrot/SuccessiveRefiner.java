@@ -3,9 +3,10 @@ package mandelbrot;
 /**
  * Custom runnable that can be used to create a thread that allows for this program to iterate using successive
  * refinement. This class calls for iteration at increasing resolutions and displays after each one, allowing for
- * the user to see a developing image of increasing effective resolution. The Thread.sleep() method is used here
- * to allow for the user to be able to actually see the image when it has been created, otherwise only the final
- * image is displayed.
+ * the user to see a developing image of increasing effective resolution. Each pass only iterates the pixels that
+ * earlier passes have not, and a pass that finishes within a frame is held onscreen for the rest of that frame so
+ * that it can actually be seen, while slower passes are followed straight away by the next. Interrupting the thread
+ * cancels the refinement, leaving the chunk size at the point it would have stopped at.
  */
 
 public class SuccessiveRefiner implements Runnable{
@@ -13,29 +14,44 @@ public class SuccessiveRefiner implements Runnable{
     /**Reference to the GUI*/
     private MandelbrotFrame mandelbrotFrame;
 
+    /**Chunk size to start successive refinement at*/
+    private int startPoint;
+
     /**Chunk size at which to stop successive refinement*/
     private int breakPoint;
 
     /**Constructor that sets the fields to the inputs*/
     public SuccessiveRefiner(MandelbrotFrame mandelbrotFrame) {
+        this(mandelbrotFrame, mandelbrotFrame.successiveRefinementOption, (int)mandelbrotFrame.chunkSpinner.getValue());
+    }
+
+    /**Constructor that refines from one chunk size, halving each pass, until another*/
+    public SuccessiveRefiner(MandelbrotFrame mandelbrotFrame, int startPoint, int breakPoint) {
         this.mandelbrotFrame = mandelbrotFrame;
-        this.breakPoint = mandelbrotFrame.mandelbrotSet.getChunkSize();
+        this.startPoint = startPoint;
+        this.breakPoint = breakPoint;
     }
 
     /**Method that is called when a thread is created based on this runnable which starts the successive refinement process*/
     @Override
     public void run() {
 
-        for (int i = mandelbrotFrame.successiveRefinementOption; i >= breakPoint; i /= 2) {
+        for (int i = startPoint; i >= breakPoint; i /= 2) {
+            long start = System.nanoTime();
             mandelbrotFrame.chunkSpinner.setValue(i);
             mandelbrotFrame.mandelbrotSet.iterate(true);
             mandelbrotFrame.mandelbrotSet.juliaSet.iterate(true);
-            mandelbrotFrame.fractalContainer.conditions.readyToCreateImage = true;
-            mandelbrotFrame.draw();
+            if (Thread.currentThread().isInterrupted()) {
+                cancel();
+                return;
+            }
+            long time = System.nanoTime() - start;
+            mandelbrotFrame.drawFinishedPass();
             try {
-                Thread.sleep(100);
+                Thread.sleep(Math.max(0, DynamicResolution.TARGET_FRAME_TIME - time) / 1_000_000);
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                cancel();
+                return;
             }
         }
         mandelbrotFrame.mandelbrotSet.resetRefined();
@@ -43,4 +59,13 @@ public class SuccessiveRefiner implements Runnable{
 
     }
 
+    /**Leaves the sets ready to be refined from scratch after the refinement has been interrupted*/
+    private void cancel() {
+
+        mandelbrotFrame.mandelbrotSet.resetRefined();
+        mandelbrotFrame.mandelbrotSet.juliaSet.resetRefined();
+        mandelbrotFrame.chunkSpinner.setValue(breakPoint);
+
+    }
+
 }
@@ -0,0 +1,9 @@
+package mandelbrot;
+
+/**
+ * Enumeration object that contains the orders in which the tiles of a fractal can be iterated. Rows runs from top to
+ * bottom as the program always has, centre out spirals from the middle of the image where the user is usually looking,
+ * cursor spirals from the last point the cursor was over and Hilbert follows a space filling curve that keeps each
+ * tile next to the one before it.*/
+
+public enum TileOrder {ROWS, CENTRE_OUT, HILBERT, CURSOR}
@@ -0,0 +1,121 @@
+package mandelbrot;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Object that splits an image into tiles and chooses the order they are iterated in, so that the region the user is
+ * looking at can be resolved and shown first rather than last. In row order each tile is a whole row of chunks, as the
+ * fractals have always been iterated, and otherwise the tiles are squares ordered by a spiral out from a focus or by
+ * a Hilbert curve. The tiles that are done are remembered, so that shortcuts which copy a pixel from its reflection
+ * can check that the reflection has been calculated whatever order the tiles are in.
+ */
+
+public class TileScheduler {
+
+    /**Length of the sides of the square tiles in pixels when no other size is given, which is a multiple of every chunk size*/
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    /**Size of each tile, and the number of tiles along each side of the image*/
+    private int tileWidth;
+    private int tileHeight;
+    private int columns;
+    private int rows;
+
+    /**Indices of the tiles in the order they are iterated, and whether each tile has been iterated*/
+    private int[] order;
+    private boolean[] done;
+
+    /**
+     * Schedules the tiles of an image, spiralling out from the focus for the cursor order or from the centre if it is
+     * null. The square tiles are rounded up to a whole number of chunks
+     */
+    public TileScheduler(TileOrder tileOrder, int tileSize, int width, int height, int chunkSize, Point focus) {
+
+        boolean byRows = tileOrder == TileOrder.ROWS;
+        int squareSize = (Math.max(tileSize, chunkSize) + chunkSize - 1) / chunkSize * chunkSize;
+        this.tileWidth = byRows ? width : squareSize;
+        this.tileHeight = byRows ? chunkSize : squareSize;
+        this.columns = (width + tileWidth - 1) / tileWidth;
+        this.rows = (height + tileHeight - 1) / tileHeight;
+        this.done = new boolean[columns * rows];
+
+        Integer[] tiles = new Integer[columns * rows];
+        for (int i = 0; i < tiles.length; i++) tiles[i] = i;
+        if (tileOrder == TileOrder.HILBERT) {
+            int side = Integer.highestOneBit(Math.max(1, Math.max(columns, rows) - 1)) << 1;
+            Arrays.sort(tiles, (a, b) -> Long.compare(hilbertIndex(side, a % columns, a / columns), hilbertIndex(side, b % columns, b / columns)));
+        }
+        else if (!byRows) {
+            if (tileOrder == TileOrder.CENTRE_OUT || focus == null) focus = new Point(width / 2, height / 2);
+            double focusColumn = (double)focus.x / tileWidth - 0.5;
+            double focusRow = (double)focus.y / tileHeight - 0.5;
+            Arrays.sort(tiles, (a, b) -> Double.compare(spiralKey(a % columns - focusColumn, a / columns - focusRow),
+                    spiralKey(b % columns - focusColumn, b / columns - focusRow)));
+        }
+        this.order = Arrays.stream(tiles).mapToInt(Integer::intValue).toArray();
+
+    }
+
+    /**Returns the position of a tile on a square spiral, ordering by the ring it is on and then by its angle around the focus*/
+    private static double spiralKey(double dx, double dy) {
+
+        long ring = Math.round(Math.max(Math.abs(dx), Math.abs(dy)));
+        return ring + (Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI + 1e-9);
+
+    }
+
+    /**Returns the distance along a Hilbert curve filling a square with sides of a power of two to the given cell*/
+    private static long hilbertIndex(int side, int x, int y) {
+
+        long index = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long)s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int temp = x;
+                x = y;
+                y = temp;
+            }
+        }
+        return index;
+
+    }
+
+    /**Returns the number of tiles*/
+    public int size() {
+        return order.length;
+    }
+
+    /**Returns the bounds of the nth tile to be iterated, which may reach past the edges of the image*/
+    public Rectangle getTile(int n) {
+
+        int tile = order[n];
+        return new Rectangle((tile % columns) * tileWidth, (tile / columns) * tileHeight, tileWidth, tileHeight);
+
+    }
+
+    /**Marks the nth tile to be iterated as done*/
+    public void markDone(int n) {
+        done[order[n]] = true;
+    }
+
+    /**
+     * Checks whether a pixel has been iterated before another, which is the case if it is in a tile that is done, or
+     * comes before it in the same tile as the pixels in a tile are iterated row by row
+     */
+    public boolean isIteratedBefore(int x, int y, int otherX, int otherY) {
+
+        int tile = (y / tileHeight) * columns + x / tileWidth;
+        if (done[tile]) return true;
+        if (tile != (otherY / tileHeight) * columns + otherX / tileWidth) return false;
+        return y < otherY || (y == otherY && x < otherX);
+
+    }
+
+}